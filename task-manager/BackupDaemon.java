@@ -1,33 +1,291 @@
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// Lifecycle: start() runs the daemon on its own thread; stop() wakes it, and it
+// writes whatever changes are still pending in a final flush before exiting.
+// awaitTermination() waits for that flush. Prefer stop() over interrupting the
+// thread: an interrupt closes the backup file's channel mid-write.
+//
+// A batch that fails to write is marked as changed again and retried after a backoff
+// that doubles from MIN_RETRY_MILLIS to MAX_RETRY_MILLIS, on a reopened backup file.
+// The backup only has to cover changes since the last snapshot, so it is truncated
+// whenever the service saves snapshotFile, and stays about as big as the changes
+// made between two saves.
 public class BackupDaemon implements Runnable {
+    private static final long MIN_RETRY_MILLIS = 100;
+    private static final long MAX_RETRY_MILLIS = 30_000;
+
     private final TaskService taskService;
+    private final String backupFile;
+    private final String snapshotFile; // null: truncate after any snapshot
+    private final int maxBatchSize;
+    private final long maxLatencyMillis;
     private volatile boolean running = true;
+    private Thread thread;
+    private final Object backupLock = new Object(); // Guards backup between writes and truncation
+    private TaskJournal backup; // null until opened, and after a failed write
+    private final Object retryLock = new Object(); // stop() cuts a retry wait short
+    private volatile long stopRequestedNanos;
+    private volatile long shutdownMillis = -1;
+
+    // Counters, written by the daemon thread (compactions by the thread saving a snapshot)
+    private volatile long batchesWritten;
+    private volatile long tasksBackedUp;
+    private volatile long writeNanos;
+    private volatile long lastLagMillis;
+    private volatile long maxLagMillis;
+    private volatile long failedWrites;
+    private volatile long compactions;
 
     public BackupDaemon(TaskService taskService) {
+        this(taskService, TaskService.backupPath("tasks.ser"), "tasks.ser", 1000, 500);
+    }
+
+    public BackupDaemon(TaskService taskService, String backupFile, int maxBatchSize, long maxLatencyMillis) {
+        this(taskService, backupFile, null, maxBatchSize, maxLatencyMillis);
+    }
+
+    // Changes are coalesced until maxBatchSize tasks are pending or the oldest
+    // change is maxLatencyMillis old, then written as one batch with one fsync.
+    // Saving snapshotFile (null: any file) truncates the backup.
+    public BackupDaemon(TaskService taskService, String backupFile, String snapshotFile,
+                        int maxBatchSize, long maxLatencyMillis) {
+        if (maxBatchSize < 1 || maxLatencyMillis < 0) {
+            throw new IllegalArgumentException("maxBatchSize must be >= 1 and maxLatencyMillis >= 0");
+        }
         this.taskService = taskService;
+        this.backupFile = backupFile;
+        this.snapshotFile = snapshotFile;
+        this.maxBatchSize = maxBatchSize;
+        this.maxLatencyMillis = maxLatencyMillis;
+    }
+
+    // Starts the daemon on a background (daemon) thread; a daemon can only be started once
+    public synchronized void start() {
+        if (thread != null) {
+            throw new IllegalStateException("BackupDaemon already started");
+        }
+        thread = new Thread(this, "BackupDaemon");
+        thread.setDaemon(true); // stop() still has to be called to flush pending changes
+        thread.start();
+    }
+
+    // Asks the daemon to flush pending changes and exit; does not wait for it
+    public void stop() {
+        if (stopRequestedNanos == 0) {
+            stopRequestedNanos = System.nanoTime();
+        }
+        running = false;
+        taskService.wakeChangeWaiters();
+        synchronized (retryLock) {
+            retryLock.notifyAll();
+        }
+    }
+
+    // Waits for the thread started by start() to finish; true if it did within the timeout
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        Thread t;
+        synchronized (this) {
+            t = thread;
+        }
+        if (t == null) {
+            return true;
+        }
+        t.join(Math.max(1, unit.toMillis(timeout)));
+        return !t.isAlive();
     }
 
     @Override
     public void run() {
         System.out.println("[BackupDaemon] Background thread started.");
+        boolean interrupted = false;
+        Consumer<String> compactor = this::snapshotSaved;
+        taskService.addSnapshotListener(compactor);
         try {
-            while (running) {
-                // Wait for a new task to be added
-                taskService.waitForNewTask();
-                
-                System.out.println("[BackupDaemon] New task detected. Simulating background backup...");
-                // Simulate time taken to backup
-                Thread.sleep(1000); 
-                System.out.println("[BackupDaemon] Backup completed.");
+            try {
+                long retryMillis = 0;
+                while (running) {
+                    // Wait for changed tasks, coalescing bursts into one batch
+                    TaskService.ChangeBatch batch = taskService.awaitChanges(maxBatchSize, maxLatencyMillis, () -> !running);
+                    if (batch.size() == 0) {
+                        continue;
+                    }
+                    if (write(batch)) {
+                        retryMillis = 0;
+                        System.out.println("[BackupDaemon] Backed up " + batch.size() + " changed task(s), lag " + lastLagMillis + " ms.");
+                    } else {
+                        retryMillis = Math.min(Math.max(retryMillis * 2, MIN_RETRY_MILLIS), MAX_RETRY_MILLIS);
+                        System.out.println("[BackupDaemon] Retrying in " + retryMillis + " ms.");
+                        backOff(retryMillis);
+                    }
+                }
+            } catch (InterruptedException e) {
+                System.out.println("[BackupDaemon] Thread interrupted. Shutting down.");
+                interrupted = true;
+            }
+
+            // Final flush: write everything still pending so shutting down never drops a change.
+            // The interrupt flag is cleared meanwhile, it would close the channel mid-write.
+            // A failed write is not retried here; its tasks stay marked as changed.
+            Thread.interrupted();
+            int flushed = 0;
+            TaskService.ChangeBatch batch;
+            while ((batch = taskService.pollChanges(maxBatchSize)).size() > 0) {
+                if (!write(batch)) {
+                    System.out.println("[BackupDaemon] Final flush failed; changes since the last snapshot are not all backed up.");
+                    break;
+                }
+                flushed += batch.size();
+            }
+            System.out.println("[BackupDaemon] Final flush wrote " + flushed + " changed task(s).");
+        } finally {
+            taskService.removeSnapshotListener(compactor);
+            synchronized (backupLock) {
+                closeBackup();
+            }
+            long requested = stopRequestedNanos;
+            if (requested != 0) {
+                shutdownMillis = (System.nanoTime() - requested) / 1_000_000;
+                System.out.println("[BackupDaemon] Stopped in " + shutdownMillis + " ms.");
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // Writes the batch, opening the backup file first if needed. On failure the batch's
+    // tasks are marked as changed again and false is returned; a TaskJournal stays failed
+    // after an error, so the file is reopened for the next attempt.
+    private boolean write(TaskService.ChangeBatch batch) {
+        synchronized (backupLock) {
+            try {
+                if (backup == null) {
+                    // The backup file is a TaskJournal of PUT entries: the latest state of each changed task
+                    backup = TaskJournal.open(backupFile);
+                    if (snapshotFile != null && TaskService.modifiedBefore(backupFile, snapshotFile)) {
+                        backup.truncate(); // Left over from before a save made while the daemon was not running
+                    }
+                }
+                long start = System.nanoTime();
+                long seq = 0;
+                for (int i = 0; i < batch.size(); i++) {
+                    seq = backup.appendPut(batch.getTask(i), batch.isCompleted(i));
+                }
+                backup.awaitDurable(seq);
+                record(batch, start, System.nanoTime());
+                return true;
+            } catch (IOException e) {
+                failedWrites++;
+                System.out.println("[BackupDaemon] Backup failed: " + e.getMessage());
+                closeBackup();
             }
-        } catch (InterruptedException e) {
-            System.out.println("[BackupDaemon] Thread interrupted. Shutting down.");
-            Thread.currentThread().interrupt();
         }
+        // Outside backupLock: a snapshot listener holds the service's write lock while it waits for it
+        taskService.requeueChanges(batch);
+        return false;
     }
 
+    // Snapshot listener, called under the service's write lock: the snapshot holds every
+    // change the backup does, and none can be made until the truncation is done
+    private void snapshotSaved(String filename) {
+        if (snapshotFile != null && !snapshotFile.equals(filename)) {
+            return;
+        }
+        synchronized (backupLock) {
+            try {
+                if (backup == null) {
+                    // Not open yet, or closed after a failure: the file may still hold older
+                    // entries, which loadFromFile would restore over the snapshot
+                    backup = TaskJournal.open(backupFile);
+                }
+                backup.truncate();
+                compactions++;
+            } catch (IOException e) {
+                System.out.println("[BackupDaemon] Could not truncate the backup: " + e.getMessage());
+                closeBackup();
+            }
+        }
+    }
+
+    private void closeBackup() {
+        if (backup != null) {
+            try {
+                backup.close();
+            } catch (IOException e) {
+                System.out.println("[BackupDaemon] Could not close the backup: " + e.getMessage());
+            }
+            backup = null;
+        }
+    }
+
+    // Sleeps before a retry; stop() ends it early so the final flush is not delayed
+    private void backOff(long millis) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        synchronized (retryLock) {
+            long remaining;
+            while (running && (remaining = deadline - System.nanoTime()) > 0) {
+                TimeUnit.NANOSECONDS.timedWait(retryLock, remaining);
+            }
+        }
+    }
+
+    private void record(TaskService.ChangeBatch batch, long start, long end) {
+        long lag = (end - batch.getOldestChangeNanos()) / 1_000_000;
+        batchesWritten++;
+        tasksBackedUp += batch.size();
+        writeNanos += end - start;
+        lastLagMillis = lag;
+        maxLagMillis = Math.max(maxLagMillis, lag);
+    }
+
+    // Kept for existing callers; same as stop()
     public void stopDaemon() {
-        running = false;
-        // In a real scenario, you might want to interrupt the thread here if it's blocked in wait()
-        // Thread needs to be managed appropriately
+        stop();
+    }
+
+    // Time from stop() until the final flush finished, or -1 if the daemon has not stopped
+    public long getShutdownMillis() {
+        return shutdownMillis;
+    }
+
+    public long getBatchesWritten() {
+        return batchesWritten;
+    }
+
+    public long getTasksBackedUp() {
+        return tasksBackedUp;
+    }
+
+    // Time from the oldest change in the last batch until it was on disk
+    public long getLastLagMillis() {
+        return lastLagMillis;
+    }
+
+    public long getMaxLagMillis() {
+        return maxLagMillis;
+    }
+
+    // Batches that failed to write and were put back for a retry
+    public long getFailedWrites() {
+        return failedWrites;
+    }
+
+    // Times the backup was truncated after a snapshot
+    public long getCompactions() {
+        return compactions;
+    }
+
+    // Tasks written per second of time spent writing
+    public double getThroughput() {
+        long nanos = writeNanos;
+        return nanos == 0 ? 0 : tasksBackedUp * 1e9 / nanos;
+    }
+
+    public String getStats() {
+        return String.format("batches=%d, tasks=%d, lastLag=%dms, maxLag=%dms, throughput=%.0f tasks/s, failures=%d, compactions=%d",
+                getBatchesWritten(), getTasksBackedUp(), getLastLagMillis(), getMaxLagMillis(), getThroughput(),
+                getFailedWrites(), getCompactions());
     }
 }
@@ -0,0 +1,103 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Dirty-slot bitset recording which tasks changed since the last backup.
+// Marking is a CAS on the slot's word, so it is safe under TaskService's
+// shared read lock; a task changed many times before the next drain is
+// backed up once. Capacity must be reserved with ensureCapacity() by the
+// single writer that appends slots.
+public class ChangeTracker {
+    private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private volatile long[] words;
+    private final AtomicInteger pending = new AtomicInteger();
+    private volatile long oldestChangeNanos;
+
+    public ChangeTracker(int expectedSlots) {
+        words = new long[Math.max(1, (expectedSlots + 63) >>> 6)];
+    }
+
+    public void ensureCapacity(int slots) {
+        int needed = (slots + 63) >>> 6;
+        long[] ws = words;
+        if (needed > ws.length) {
+            words = Arrays.copyOf(ws, Math.max(needed, ws.length << 1));
+        }
+    }
+
+    // Drops every pending change, e.g. after the task list was reloaded
+    public void reset(int expectedSlots) {
+        words = new long[Math.max(1, (expectedSlots + 63) >>> 6)];
+        pending.set(0);
+    }
+
+    // Marks the slot as changed. Returns the number of pending changes after
+    // marking, or 0 if the slot was already pending.
+    public int mark(int slot) {
+        long[] ws = words;
+        int w = slot >>> 6;
+        long bit = 1L << slot;
+        while (true) {
+            long word = (long) WORDS.getAcquire(ws, w);
+            if ((word & bit) != 0) {
+                return 0;
+            }
+            if (WORDS.compareAndSet(ws, w, word, word | bit)) {
+                int count = pending.incrementAndGet();
+                if (count == 1) {
+                    oldestChangeNanos = System.nanoTime();
+                }
+                return count;
+            }
+        }
+    }
+
+    // Marks the slots of a batch whose backup failed, keeping their original change time
+    public void requeue(int[] slots, long changedNanos) {
+        for (int slot : slots) {
+            mark(slot);
+        }
+        if (changedNanos - oldestChangeNanos < 0) {
+            oldestChangeNanos = changedNanos;
+        }
+    }
+
+    public int pending() {
+        return pending.get();
+    }
+
+    // System.nanoTime() of the change that made the pending set non-empty
+    public long oldestChangeNanos() {
+        return oldestChangeNanos;
+    }
+
+    // Moves up to max pending slots into the list, in slot order, and clears them
+    public int drain(IntList into, int max) {
+        long[] ws = words;
+        int taken = 0;
+        for (int w = 0; w < ws.length && taken < max; w++) {
+            while (true) {
+                long word = (long) WORDS.getAcquire(ws, w);
+                if (word == 0) {
+                    break;
+                }
+                long take = word;
+                // Only part of the word fits: keep its lowest (max - taken) bits
+                while (Long.bitCount(take) > max - taken) {
+                    take &= ~Long.highestOneBit(take);
+                }
+                if (WORDS.compareAndSet(ws, w, word, word & ~take)) {
+                    for (long bits = take; bits != 0; bits &= bits - 1) {
+                        into.add((w << 6) + Long.numberOfTrailingZeros(bits));
+                    }
+                    taken += Long.bitCount(take);
+                    break;
+                }
+            }
+        }
+        pending.addAndGet(-taken);
+        return taken;
+    }
+}
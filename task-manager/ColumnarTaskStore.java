@@ -0,0 +1,149 @@
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Objects;
+
+// Struct-of-arrays TaskStore: one primitive column per field instead of one
+// object graph per task (Task + String + byte[] + LocalDate). A scan over ids,
+// priorities or deadlines walks a dense array rather than chasing pointers, and
+// a task costs 13 bytes of columns plus its UTF-8 title in a shared arena:
+//
+//   ids        int[]   task ID
+//   meta       byte[]  priority and flags (see PackedTaskStore)
+//   deadlines  int[]   deadline as an epoch day
+//   titleEnds  int[]   end of the title in the arena; it starts where the previous one ends
+//   titles     byte[]  UTF-8 titles, back to back
+public class ColumnarTaskStore extends PackedTaskStore {
+    // Arrays are replaced on growth; volatile so views read outside the service's lock see whole arrays
+    private volatile int[] ids;
+    private volatile byte[] meta;
+    private volatile int[] deadlines;
+    private volatile int[] titleEnds;
+    private volatile byte[] titles;
+    private volatile int size;
+
+    public ColumnarTaskStore() {
+        this(16);
+    }
+
+    public ColumnarTaskStore(int expectedSize) {
+        int capacity = Math.max(expectedSize, 1);
+        ids = new int[capacity];
+        meta = new byte[capacity];
+        deadlines = new int[capacity];
+        titleEnds = new int[capacity];
+        titles = new byte[capacity * 16];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public TaskStore newEmpty(int expectedSize) {
+        return new ColumnarTaskStore(expectedSize);
+    }
+
+    // Bytes held by the columns and the title arena, including unused capacity
+    public long footprintBytes() {
+        return 4L * ids.length + meta.length + 4L * deadlines.length + 4L * titleEnds.length + titles.length;
+    }
+
+    @Override
+    protected void reserve(int count, IntList titleLengths) {
+        long slots = (long) size + count;
+        long end = size > 0 ? titleEnds[size - 1] : 0;
+        for (int i = 0; i < titleLengths.size(); i++) {
+            end += titleLengths.get(i);
+        }
+        if (slots > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("Task store is full");
+        }
+        if (end > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("Title arena is full");
+        }
+        if (slots > ids.length) {
+            growTo((int) Math.min(Math.max(slots, ids.length + (ids.length >> 1) + 1L), Integer.MAX_VALUE - 8));
+        }
+        if (end > titles.length) {
+            titles = Arrays.copyOf(titles, (int) Math.min(Math.max((long) titles.length * 3 / 2, end), Integer.MAX_VALUE - 8));
+        }
+    }
+
+    @Override
+    protected int append(int id, int flags, int deadline, byte[] title) {
+        int slot = size;
+        if (slot == ids.length) {
+            growTo(ids.length + (ids.length >> 1) + 1);
+        }
+        int end = slot > 0 ? titleEnds[slot - 1] : 0;
+        if (title != null) {
+            if (title.length > Integer.MAX_VALUE - 8 - end) {
+                throw new IllegalStateException("Title arena is full");
+            }
+            if (end + title.length > titles.length) {
+                long capacity = Math.max((long) titles.length * 3 / 2, end + title.length);
+                titles = Arrays.copyOf(titles, (int) Math.min(capacity, Integer.MAX_VALUE - 8));
+            }
+            System.arraycopy(title, 0, titles, end, title.length);
+            end += title.length;
+        }
+        ids[slot] = id;
+        meta[slot] = (byte) flags;
+        deadlines[slot] = deadline;
+        titleEnds[slot] = end;
+        size = slot + 1; // Publishes the slot
+        return slot;
+    }
+
+    @Override
+    protected int flags(int slot) {
+        Objects.checkIndex(slot, size);
+        return meta[slot];
+    }
+
+    @Override
+    protected void setFlags(int slot, int flags) {
+        meta[slot] = (byte) flags;
+    }
+
+    @Override
+    protected int packedId(int slot) {
+        return ids[slot];
+    }
+
+    @Override
+    protected int packedDeadline(int slot) {
+        return deadlines[slot];
+    }
+
+    @Override
+    protected void setPackedDeadline(int slot, int deadline) {
+        deadlines[slot] = deadline;
+    }
+
+    @Override
+    protected String packedTitle(int slot) {
+        int[] ends = titleEnds;
+        int start = slot > 0 ? ends[slot - 1] : 0;
+        return new String(titles, start, ends[slot] - start, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    protected int packedTitleUtf8(int slot, byte[] buffer, int offset) {
+        int[] ends = titleEnds;
+        int start = slot > 0 ? ends[slot - 1] : 0;
+        int length = ends[slot] - start;
+        if (length <= buffer.length - offset) {
+            System.arraycopy(titles, start, buffer, offset, length);
+        }
+        return length;
+    }
+
+    private void growTo(int capacity) {
+        ids = Arrays.copyOf(ids, capacity);
+        meta = Arrays.copyOf(meta, capacity);
+        deadlines = Arrays.copyOf(deadlines, capacity);
+        titleEnds = Arrays.copyOf(titleEnds, capacity);
+    }
+}
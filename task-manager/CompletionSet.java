@@ -0,0 +1,160 @@
+import java.io.*;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+// Completion tracker backed by a long[] bitset keyed by task slot.
+// One bit per task instead of a boxed Integer per completed task, and the
+// completed count is kept alongside so size() stays O(1).
+// add() and remove() flip bits with a CAS on the slot's word, so concurrent
+// callers can mark different tasks without a lock as long as the capacity was
+// reserved up front with ensureCapacity() (growing is not thread-safe).
+public class CompletionSet implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final VarHandle COUNT;
+
+    static {
+        try {
+            COUNT = MethodHandles.lookup().findVarHandle(CompletionSet.class, "count", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private transient long[] words;
+    private transient volatile int count;
+
+    public CompletionSet() {
+        this(64);
+    }
+
+    public CompletionSet(int expectedSlots) {
+        words = new long[Math.max(1, (expectedSlots + 63) >>> 6)];
+    }
+
+    // Makes room for slots [0, slots) so that add() never has to grow
+    public void ensureCapacity(int slots) {
+        int needed = (slots + 63) >>> 6;
+        if (needed > words.length) {
+            words = Arrays.copyOf(words, Math.max(needed, words.length << 1));
+        }
+    }
+
+    // Marks the slot as completed. Returns false if it already was.
+    public boolean add(int slot) {
+        ensureCapacity(slot + 1);
+        long[] ws = words;
+        int w = slot >>> 6;
+        long bit = 1L << slot;
+        while (true) {
+            long word = (long) WORDS.getAcquire(ws, w);
+            if ((word & bit) != 0) {
+                return false;
+            }
+            if (WORDS.compareAndSet(ws, w, word, word | bit)) {
+                COUNT.getAndAdd(this, 1);
+                return true;
+            }
+        }
+    }
+
+    // Clears the slot's bit, e.g. to undo an add() whose write-ahead log entry failed.
+    // Returns false if it was not set.
+    public boolean remove(int slot) {
+        long[] ws = words;
+        int w = slot >>> 6;
+        if (w >= ws.length) {
+            return false;
+        }
+        long bit = 1L << slot;
+        while (true) {
+            long word = (long) WORDS.getAcquire(ws, w);
+            if ((word & bit) == 0) {
+                return false;
+            }
+            if (WORDS.compareAndSet(ws, w, word, word & ~bit)) {
+                COUNT.getAndAdd(this, -1);
+                return true;
+            }
+        }
+    }
+
+    public boolean contains(int slot) {
+        long[] ws = words;
+        int w = slot >>> 6;
+        return w < ws.length && ((long) WORDS.getAcquire(ws, w) & (1L << slot)) != 0;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    // Index of the first completed slot >= from, or -1 if there is none
+    public int nextCompleted(int from) {
+        long[] ws = words;
+        int w = from >>> 6;
+        if (w >= ws.length) {
+            return -1;
+        }
+        long word = (long) WORDS.getAcquire(ws, w) & (-1L << from);
+        while (true) {
+            if (word != 0) {
+                return (w << 6) + Long.numberOfTrailingZeros(word);
+            }
+            if (++w == ws.length) {
+                return -1;
+            }
+            word = (long) WORDS.getAcquire(ws, w);
+        }
+    }
+
+    // Index of the first pending slot >= from (may be past the last task)
+    public int nextPending(int from) {
+        long[] ws = words;
+        int w = from >>> 6;
+        if (w >= ws.length) {
+            return from;
+        }
+        long word = ~(long) WORDS.getAcquire(ws, w) & (-1L << from);
+        while (true) {
+            if (word != 0) {
+                return (w << 6) + Long.numberOfTrailingZeros(word);
+            }
+            if (++w == ws.length) {
+                return w << 6;
+            }
+            word = ~(long) WORDS.getAcquire(ws, w);
+        }
+    }
+
+    // Compact form: only the words up to the last completed slot
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        long[] ws = words;
+        int used = ws.length;
+        while (used > 0 && (long) WORDS.getAcquire(ws, used - 1) == 0) {
+            used--;
+        }
+        out.writeInt(used);
+        for (int i = 0; i < used; i++) {
+            out.writeLong((long) WORDS.getAcquire(ws, i));
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        int used = in.readInt();
+        if (used < 0) {
+            throw new InvalidObjectException("Negative word count: " + used);
+        }
+        long[] ws = new long[Math.max(1, used)];
+        int bits = 0;
+        for (int i = 0; i < used; i++) {
+            ws[i] = in.readLong();
+            bits += Long.bitCount(ws[i]);
+        }
+        words = ws;
+        count = bits;
+    }
+}
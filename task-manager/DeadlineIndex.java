@@ -0,0 +1,116 @@
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.IntPredicate;
+
+// Pending Schedulable tasks ordered by deadline: epoch day -> slots due that day.
+// Overdue and next-due queries walk only the buckets they return, so they cost
+// O(log n + k) instead of a scan over every task. Delaying a task moves it to its
+// new day. Completing a task leaves its slot behind as a tombstone: callers skip
+// completed slots, and TaskService drops them in one removeIf() pass once they make
+// up half of the index. Not thread-safe on its own; TaskService reads under its
+// read lock and writes under its write lock.
+public class DeadlineIndex {
+    private final TreeMap<Long, IntList> buckets = new TreeMap<>();
+    private int size;
+
+    public void add(int slot, long epochDay) {
+        buckets.computeIfAbsent(epochDay, d -> new IntList(2)).add(slot);
+        size++;
+    }
+
+    // Linear in the slots due that day
+    public boolean remove(int slot, long epochDay) {
+        IntList bucket = buckets.get(epochDay);
+        if (bucket == null || !bucket.removeValue(slot)) {
+            return false;
+        }
+        if (bucket.isEmpty()) {
+            buckets.remove(epochDay);
+        }
+        size--;
+        return true;
+    }
+
+    public void move(int slot, long fromEpochDay, long toEpochDay) {
+        if (remove(slot, fromEpochDay)) {
+            add(slot, toEpochDay);
+        }
+    }
+
+    // Removes every matching slot and returns how many were removed
+    public int removeIf(IntPredicate filter) {
+        int removed = 0;
+        for (Iterator<IntList> it = buckets.values().iterator(); it.hasNext(); ) {
+            IntList bucket = it.next();
+            removed += bucket.removeIf(filter);
+            if (bucket.isEmpty()) {
+                it.remove();
+            }
+        }
+        size -= removed;
+        return removed;
+    }
+
+    // Slots in the index, tombstones included
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        buckets.clear();
+        size = 0;
+    }
+
+    // Slots whose deadline is before asOfEpochDay, earliest deadline first
+    public IntList overdue(long asOfEpochDay) {
+        IntList result = new IntList();
+        for (IntList bucket : buckets.headMap(asOfEpochDay, false).values()) {
+            addAll(result, bucket, Integer.MAX_VALUE, null);
+        }
+        return result;
+    }
+
+    // Slots whose deadline is within [fromEpochDay, toEpochDay], earliest deadline first
+    public IntList between(long fromEpochDay, long toEpochDay) {
+        IntList result = new IntList();
+        if (fromEpochDay <= toEpochDay) {
+            for (IntList bucket : buckets.subMap(fromEpochDay, true, toEpochDay, true).values()) {
+                addAll(result, bucket, Integer.MAX_VALUE, null);
+            }
+        }
+        return result;
+    }
+
+    // Size of between(fromEpochDay, toEpochDay), visiting only the day buckets
+    public int countBetween(long fromEpochDay, long toEpochDay) {
+        int count = 0;
+        if (fromEpochDay <= toEpochDay) {
+            for (IntList bucket : buckets.subMap(fromEpochDay, true, toEpochDay, true).values()) {
+                count += bucket.size();
+            }
+        }
+        return count;
+    }
+
+    // Up to n slots whose deadline is on or after fromEpochDay, earliest deadline first,
+    // leaving out the slots skip matches (e.g. tombstones)
+    public IntList nextDue(int n, long fromEpochDay, IntPredicate skip) {
+        IntList result = new IntList(Math.min(Math.max(n, 1), 64));
+        for (Map.Entry<Long, IntList> e : buckets.tailMap(fromEpochDay, true).entrySet()) {
+            if (result.size() >= n) {
+                break;
+            }
+            addAll(result, e.getValue(), n, skip);
+        }
+        return result;
+    }
+
+    private static void addAll(IntList into, IntList bucket, int limit, IntPredicate skip) {
+        for (int i = 0; i < bucket.size() && into.size() < limit; i++) {
+            if (skip == null || !skip.test(bucket.get(i))) {
+                into.add(bucket.get(i));
+            }
+        }
+    }
+}
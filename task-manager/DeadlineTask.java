@@ -1,34 +1,125 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.time.LocalDate;
 
+// While a TaskStore holds the task, delay() and setDeadline() go through the store's
+// scheduler (the owning TaskService), so the deadline index, write-ahead log and change
+// feed see the change. A stored task's deadline can then be moved but not cleared.
 public class DeadlineTask extends Task implements Schedulable {
     private static final long serialVersionUID = 1L;
+    private static final VarHandle SCHEDULER;
+
+    static {
+        try {
+            SCHEDULER = MethodHandles.lookup().findVarHandle(DeadlineTask.class, "scheduler", TaskStore.Scheduler.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     private LocalDate deadline;
+    private transient volatile TaskStore.Scheduler scheduler;
 
     public DeadlineTask(int id, String title, Priority priority, LocalDate deadline) {
         super(id, title, priority);
         this.deadline = deadline;
     }
 
+    @Override
     public LocalDate getDeadline() {
         return deadline;
     }
 
     public void setDeadline(LocalDate deadline) {
-        this.deadline = deadline;
+        TaskStore.Scheduler s = scheduler();
+        if (s == null) {
+            applyDeadline(deadline);
+            return;
+        }
+        if (deadline == null) {
+            throw new IllegalArgumentException("The deadline of a stored task cannot be cleared");
+        }
+        long day = deadline.toEpochDay();
+        s.reschedule(getId(), current -> day);
     }
 
     @Override
-    public boolean isOverdue() {
-        return LocalDate.now().isAfter(deadline);
+    public boolean isOverdue(long asOfEpochDay) {
+        return asOfEpochDay > getDeadline().toEpochDay();
     }
 
     @Override
     public void delay(int days) {
-        this.deadline = this.deadline.plusDays(days);
+        TaskStore.Scheduler s = scheduler();
+        if (s != null) {
+            s.reschedule(getId(), current -> current + days);
+        } else {
+            setDeadline(getDeadline().plusDays(days));
+        }
+    }
+
+    // Sets the deadline without going through the scheduler; stores call this
+    // under the service's write lock
+    void applyDeadline(LocalDate deadline) {
+        this.deadline = deadline;
+    }
+
+    // The scheduler of the store holding this task, or null
+    TaskStore.Scheduler scheduler() {
+        return scheduler;
+    }
+
+    // The task to store in place of task: task itself, tied to scheduler, or a copy
+    // if another store holds it already or it is a view of a packed store
+    static DeadlineTask adopt(DeadlineTask task, TaskStore.Scheduler scheduler) {
+        if (task.getClass() == DeadlineTask.class && SCHEDULER.compareAndSet(task, null, scheduler)) {
+            return task;
+        }
+        DeadlineTask copy = new DeadlineTask(task.getId(), task.getTitle(), task.getPriority(), task.getDeadline());
+        copy.scheduler = scheduler;
+        return copy;
+    }
+
+    void setScheduler(TaskStore.Scheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public void appendTo(StringBuilder sb, long asOfEpochDay) {
+        super.appendTo(sb, asOfEpochDay);
+        sb.append(" [Deadline: ");
+        appendDate(sb, getDeadline());
+        sb.append(isOverdue(asOfEpochDay) ? " (OVERDUE!)]" : "]");
+    }
+
+    // Same text as LocalDate.toString() for years 0-9999, without allocating
+    private static void appendDate(StringBuilder sb, LocalDate date) {
+        int year = date.getYear();
+        if (year < 0 || year > 9999) {
+            sb.append(date);
+            return;
+        }
+        appendDigits(sb, year, 4);
+        sb.append('-');
+        appendDigits(sb, date.getMonthValue(), 2);
+        sb.append('-');
+        appendDigits(sb, date.getDayOfMonth(), 2);
+    }
+
+    private static void appendDigits(StringBuilder sb, int value, int width) {
+        int div = 1;
+        for (int i = 1; i < width; i++) {
+            div *= 10;
+        }
+        for (; div > 0; div /= 10) {
+            sb.append((char) ('0' + value / div % 10));
+        }
     }
 
     @Override
     public String toString() {
-        return super.toString() + " [Deadline: " + deadline + (isOverdue() ? " (OVERDUE!)" : "") + "]";
+        StringBuilder sb = new StringBuilder(64);
+        appendTo(sb, LocalDate.now().toEpochDay());
+        return sb.toString();
     }
 }
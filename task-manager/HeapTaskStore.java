@@ -0,0 +1,105 @@
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+// Default TaskStore: the Task objects themselves, in a plain list indexed by slot.
+// TaskService keeps the ID index for every kind of store, so there is none here.
+// A DeadlineTask is adopted (or copied, if another store holds it or it is a view of
+// a packed store) and tied to the scheduler, so delay() on it reaches the service.
+public class HeapTaskStore implements TaskStore {
+    private final ArrayList<Task> tasks;
+    private volatile Scheduler scheduler;
+
+    public HeapTaskStore() {
+        this(16);
+    }
+
+    public HeapTaskStore(int expectedSize) {
+        tasks = new ArrayList<>(expectedSize);
+    }
+
+    @Override
+    public int size() {
+        return tasks.size();
+    }
+
+    @Override
+    public int add(Task task) {
+        tasks.add(own(task)); // TaskService has already rejected a duplicate ID
+        return tasks.size() - 1;
+    }
+
+    @Override
+    public void reserve(List<Task> batch) {
+        if (batch.size() > Integer.MAX_VALUE - 8 - tasks.size()) {
+            throw new IllegalStateException("Task store is full");
+        }
+        tasks.ensureCapacity(tasks.size() + batch.size());
+    }
+
+    // Plain tasks never change; Schedulable classes other than DeadlineTask are kept as they are
+    private Task own(Task task) {
+        return task instanceof DeadlineTask && PackedTaskStore.isPackable(task)
+                ? DeadlineTask.adopt((DeadlineTask) task, scheduler) : task;
+    }
+
+    @Override
+    public Task get(int slot) {
+        return tasks.get(slot);
+    }
+
+    @Override
+    public int getId(int slot) {
+        return tasks.get(slot).getId();
+    }
+
+    @Override
+    public String getTitle(int slot) {
+        return tasks.get(slot).getTitle();
+    }
+
+    @Override
+    public Priority getPriority(int slot) {
+        return tasks.get(slot).getPriority();
+    }
+
+    @Override
+    public long getDeadlineDay(int slot) {
+        Task task = tasks.get(slot);
+        LocalDate deadline = task instanceof Schedulable ? ((Schedulable) task).getDeadline() : null;
+        return deadline != null ? deadline.toEpochDay() : NO_DEADLINE;
+    }
+
+    @Override
+    public void delay(int slot, int days) {
+        Task task = tasks.get(slot);
+        if (task instanceof DeadlineTask) {
+            DeadlineTask t = (DeadlineTask) task;
+            t.applyDeadline(t.getDeadline().plusDays(days));
+        } else {
+            ((Schedulable) task).delay(days); // Other Schedulable classes have no scheduler
+        }
+    }
+
+    @Override
+    public void setScheduler(Scheduler scheduler) {
+        this.scheduler = scheduler;
+        for (int slot = 0; slot < tasks.size(); slot++) {
+            Task task = tasks.get(slot);
+            if (task.getClass() == DeadlineTask.class) {
+                ((DeadlineTask) task).setScheduler(scheduler);
+            }
+        }
+    }
+
+    // The stored object; callers get the same instance the service mutates
+    @Override
+    public Task detach(int slot) {
+        return tasks.get(slot);
+    }
+
+    @Override
+    public TaskStore newEmpty(int expectedSize) {
+        return new HeapTaskStore(expectedSize);
+    }
+}
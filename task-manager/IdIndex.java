@@ -0,0 +1,127 @@
+import java.util.Arrays;
+
+// Primitive int -> int open-addressing hash map (linear probing).
+// Maps a task ID to its slot in the task list without boxing either side.
+// Lookups may run without a lock, racing a writer, as TaskService's optimistic reads
+// do (the caller validates afterwards). A lookup reads the table once, and a resize
+// fills a new table completely before publishing it. The table is never more than
+// half full, so every probe reaches an empty bucket.
+public class IdIndex {
+    private static final int EMPTY = -1;
+
+    // keys, slots and mask always belong together
+    private static final class Table {
+        final int[] keys;
+        final int[] slots;
+        final int mask;
+
+        Table(int capacity) {
+            keys = new int[capacity];
+            slots = new int[capacity];
+            Arrays.fill(slots, EMPTY);
+            mask = capacity - 1;
+        }
+    }
+
+    private volatile Table table;
+    private int size;
+
+    public IdIndex() {
+        this(16);
+    }
+
+    public IdIndex(int expectedSize) {
+        table = new Table(tableSizeFor(expectedSize));
+    }
+
+    // Returns the slot stored for the id, or -1 if the id is not present
+    public int get(int id) {
+        Table t = table;
+        int[] slots = t.slots;
+        int mask = t.mask;
+        int i = hash(id) & mask;
+        // Bounded by the table size, so even a torn read during a racing write ends
+        for (int probes = 0; probes <= mask && slots[i] != EMPTY; probes++) {
+            if (t.keys[i] == id) {
+                return slots[i];
+            }
+            i = (i + 1) & mask;
+        }
+        return EMPTY;
+    }
+
+    public boolean contains(int id) {
+        return get(id) != EMPTY;
+    }
+
+    // Inserts id -> slot unless the id already exists.
+    // Returns -1 on insert, otherwise the slot already mapped to the id.
+    public int putIfAbsent(int id, int slot) {
+        if (slot < 0) {
+            throw new IllegalArgumentException("Slot must be non-negative: " + slot);
+        }
+        Table t = table;
+        int i = hash(id) & t.mask;
+        while (t.slots[i] != EMPTY) {
+            if (t.keys[i] == id) {
+                return t.slots[i];
+            }
+            i = (i + 1) & t.mask;
+        }
+        t.keys[i] = id;
+        t.slots[i] = slot;
+        if (++size > (t.mask + 1) >> 1) {
+            resize((t.mask + 1) << 1);
+        }
+        return EMPTY;
+    }
+
+    // Grows the table once for expectedSize entries, instead of doubling repeatedly during a bulk load
+    public void ensureCapacity(int expectedSize) {
+        int capacity = tableSizeFor(expectedSize);
+        if (capacity > table.mask + 1) {
+            resize(capacity);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        table = new Table(table.slots.length);
+        size = 0;
+    }
+
+    // Builds the new table in full, then publishes it with one volatile write
+    private void resize(int capacity) {
+        Table old = table;
+        Table grown = new Table(capacity);
+        for (int j = 0; j < old.slots.length; j++) {
+            if (old.slots[j] != EMPTY) {
+                int i = hash(old.keys[j]) & grown.mask;
+                while (grown.slots[i] != EMPTY) {
+                    i = (i + 1) & grown.mask;
+                }
+                grown.keys[i] = old.keys[j];
+                grown.slots[i] = old.slots[j];
+            }
+        }
+        table = grown;
+    }
+
+    // Spread sequential IDs across the table (Fibonacci hashing)
+    private static int hash(int id) {
+        int h = id * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    // Smallest power of two that keeps the table at most half full
+    private static int tableSizeFor(int expectedSize) {
+        int capacity = 16;
+        while (capacity < expectedSize * 2 && capacity < (1 << 30)) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+}
@@ -0,0 +1,134 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Log-linear latency histogram in the style of HdrHistogram. Values below 64 ns
+// get a bucket each; above that every power of two is split into 32 linear
+// sub-buckets, so a recorded value is known to within 1/32 (about 3%) anywhere
+// from 1 ns to Long.MAX_VALUE, in under 2,000 buckets.
+// record() takes no lock: each thread adds to one of several stripes (picked by
+// thread ID) with two atomic adds, so concurrent recorders rarely contend on
+// the same counters. The max is not tracked per record (that is a compare-and-set
+// on a shared slot); snapshot() derives it from the highest non-empty bucket, so
+// like every other figure it is exact to within 1/32.
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_MASK = (1 << SUB_BUCKET_BITS) - 1;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * (1 << SUB_BUCKET_BITS);
+    private static final int SUM = BUCKETS; // Extra counter after the buckets of each stripe
+
+    private final AtomicLongArray[] stripes;
+    private final int stripeMask;
+
+    public LatencyHistogram() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public LatencyHistogram(int concurrency) {
+        int count = 1;
+        while (count < concurrency && count < 64) {
+            count <<= 1;
+        }
+        stripes = new AtomicLongArray[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new AtomicLongArray(BUCKETS + 1);
+        }
+        stripeMask = count - 1;
+    }
+
+    public void record(long nanos) {
+        long value = Math.max(nanos, 0);
+        AtomicLongArray stripe = stripes[(int) Thread.currentThread().getId() & stripeMask];
+        stripe.getAndIncrement(bucketOf(value));
+        stripe.getAndAdd(SUM, value);
+    }
+
+    // Counts recorded concurrently with the reset may survive it
+    public void reset() {
+        for (AtomicLongArray stripe : stripes) {
+            for (int i = 0; i < stripe.length(); i++) {
+                stripe.set(i, 0);
+            }
+        }
+    }
+
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        long sum = 0;
+        for (AtomicLongArray stripe : stripes) {
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] += stripe.get(i);
+            }
+            sum += stripe.get(SUM);
+        }
+        return new Snapshot(counts, sum);
+    }
+
+    static int bucketOf(long value) {
+        if (value <= SUB_BUCKET_MASK) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return ((shift + 1) << SUB_BUCKET_BITS) | (int) ((value >>> shift) & SUB_BUCKET_MASK);
+    }
+
+    // Largest value that lands in the bucket
+    static long highestValueIn(int bucket) {
+        if (bucket <= SUB_BUCKET_MASK) {
+            return bucket;
+        }
+        int shift = (bucket >>> SUB_BUCKET_BITS) - 1;
+        long lowest = (long) ((1 << SUB_BUCKET_BITS) | (bucket & SUB_BUCKET_MASK)) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    // Point-in-time copy of the counts
+    public static class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        Snapshot(long[] counts, long sum) {
+            long total = 0;
+            int highest = -1;
+            for (int i = 0; i < counts.length; i++) {
+                total += counts[i];
+                if (counts[i] > 0) {
+                    highest = i;
+                }
+            }
+            this.counts = counts;
+            this.count = total;
+            this.sum = sum;
+            this.max = highest >= 0 ? highestValueIn(highest) : 0;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getMean() {
+            return count > 0 ? (double) sum / count : 0;
+        }
+
+        // Upper end of the highest non-empty bucket: at most 1/32 above the true max
+        public long getMax() {
+            return max;
+        }
+
+        // Smallest value that percentile% of the recorded values do not exceed (within 1/32)
+        public long getValueAtPercentile(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return highestValueIn(i);
+                }
+            }
+            return max;
+        }
+    }
+}
@@ -1,23 +1,34 @@
+import java.io.IOException;
 import java.lang.reflect.Method;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 public class Main {
     @SuppressWarnings("deprecation")
     public static void main(String[] args) {
-        Repository<Task> repo = new Repository<>();
         TaskService service = new TaskService();
         String filename = "tasks.ser";
         // Start Daemon Thread
         System.out.println("--- Starting Backup Daemon Thread ---");
         BackupDaemon daemon = new BackupDaemon(service);
-        Thread daemonThread = new Thread(daemon);
-        daemonThread.setDaemon(true); // Will stop when main thread stops
-        daemonThread.start();
+        daemon.start();
 
         System.out.println("--- Loading from File (Serialization) ---");
         service.loadFromFile(filename);
 
+        System.out.println("\n--- Opening Write-Ahead Log (every change is durable immediately) ---");
+        try {
+            service.openWriteAheadLog(filename);
+        } catch (IOException e) {
+            System.out.println("Write-ahead log unavailable: " + e.getMessage());
+        }
+
+        // Subscribe before changing anything; the events are printed further down
+        TaskChangeFeed.Subscription changes = service.subscribeToChanges();
+
         System.out.println("\n--- Normal Operations (Enums & Annotations & Inheritance/Polymorphism) ---");
         try {
             Task t1 = new Task.TaskBuilder()
@@ -35,10 +46,6 @@ public class Main {
             // Demonstrating Inheritance and Polymorphism
             Task t3 = new DeadlineTask(3, "Submit Assignment", Priority.HIGH, LocalDate.now().plusDays(2));
 
-            repo.add(t1);
-            repo.add(t2);
-            repo.add(t3);
-
             service.addTask(t1);
             service.addTask(t2);
             service.addTask(t3);
@@ -71,6 +78,20 @@ public class Main {
             System.out.println(e.getMessage());
         }
 
+        System.out.println("\n--- Instrumentation (@LogExecution methods timed through a dynamic proxy) ---");
+        TaskMetrics metrics = new TaskMetrics();
+        TaskOperations ops = metrics.instrument(service);
+        for (int i = 0; i < 1000; i++) {
+            ops.getTaskOrDefault(i % 4, () -> null);
+            ops.filterTasks(t -> t.getPriority() == Priority.HIGH);
+        }
+        try {
+            ops.markCompleted(99);
+        } catch (InvalidTaskException e) {
+            // Counted as an error
+        }
+        System.out.print(metrics.dump());
+
         System.out.println("\n--- Demonstration of Built-in Annotation (@Deprecated) ---");
         System.out.println("Calling deprecated showAll() method:");
         service.showAll();
@@ -126,16 +147,70 @@ public class Main {
             System.out.println(Arrays.toString(row));
         }
 
-        // Allow daemon some time to process the last added task before exiting
+        System.out.println("\n4. Streaming tasks as CSV and NDJSON (no intermediate arrays):");
         try {
-            Thread.sleep(1500);
-        } catch (InterruptedException e) {
-            e.printStackTrace();
+            service.exportTasks(System.out, TaskImporter.Format.CSV);
+            service.exportTasks(System.out, TaskImporter.Format.NDJSON);
+        } catch (IOException e) {
+            System.out.println("Error exporting tasks: " + e.getMessage());
         }
 
+        System.out.println("\n--- Deadline Index (overdue sweep without a full scan) ---");
+        LocalDate today = LocalDate.now();
+        System.out.println("Overdue as of " + today + ": " + service.getOverdueTasks(today));
+        System.out.println("Next 5 due: " + service.getNextDueTasks(5, today));
+
+        System.out.println("\n--- Query DSL (planned against the indexes) ---");
+        TaskQuery query = new TaskQuery.Builder()
+                .setPriorities(Priority.HIGH)
+                .setCompleted(false)
+                .setOrderBy(TaskQuery.Order.DEADLINE)
+                .build();
+        System.out.print(service.explain(query));
+        System.out.println("Result: " + service.query(query));
+        System.out.println("Title search 'assignment': " + service.searchTitles("assignment"));
+        System.out.println("Type-ahead 'build pro': " + service.searchTitlesAsTyped("build pro"));
+
+        System.out.println("\n--- Change Feed (ordered events, resumable by sequence number) ---");
+        List<TaskChangeFeed.Event> events = new ArrayList<>();
+        changes.drainTo(events, 100);
+        events.forEach(System.out::println);
+        changes.close();
+        if (events.isEmpty()) {
+            System.out.println("No changes since start-up.");
+        } else {
+            long last = events.get(events.size() - 1).getSequence();
+            try (TaskChangeFeed.Subscription resumed = service.subscribeToChanges(last)) {
+                System.out.println("Resumed at #" + last + ": " + resumed.poll());
+            }
+        }
+
+        // Save while the daemon runs: the snapshot holds every change, so it truncates the backup
         System.out.println("\n--- Saving to File (Serialization) ---");
-        service.saveToFile(filename);
-        
+        service.saveToFile(filename); // Also compacts the write-ahead log into the snapshot
+
+        // Stop the daemon: it flushes any changes made since the save before exiting
+        System.out.println("\n--- Stopping Backup Daemon ---");
+        daemon.stop();
+        try {
+            if (!daemon.awaitTermination(5, TimeUnit.SECONDS)) {
+                System.out.println("[BackupDaemon] Did not stop within 5 seconds.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        System.out.println("[BackupDaemon] " + daemon.getStats());
+        try {
+            service.closeWriteAheadLog();
+        } catch (IOException e) {
+            System.out.println("Error closing write-ahead log: " + e.getMessage());
+        }
+
+        System.out.println("\n--- Memory-Mapped Read Mode (tasks decoded on first lookup) ---");
+        TaskService reader = new TaskService();
+        reader.loadFromFile(filename, true);
+        System.out.println("Task 1: " + reader.getTaskOrDefault(1, () -> null));
+
         System.out.println("--- Application Finished ---");
     }
 }
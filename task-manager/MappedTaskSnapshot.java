@@ -0,0 +1,217 @@
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+// Read-only, lazily materialized view of a version 2 TaskSnapshot file.
+// The file is memory-mapped instead of read, so opening it only touches the
+// header and footer; a Task object is decoded the first time its ID is looked
+// up (binary search over the id table) and cached afterwards. Resident memory
+// therefore follows the working set, not the file size.
+// Files larger than 2 GB are mapped in 1 GB windows.
+public class MappedTaskSnapshot implements Closeable {
+    private static final int WINDOW_SHIFT = 30;
+    private static final long WINDOW_MASK = (1L << WINDOW_SHIFT) - 1;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] windows;
+    private final int taskCount;
+    private final int titleCount;
+    private final long recordsPos;
+    private final long titleTablePos;
+    private final long idTablePos;
+    private final Map<Integer, Task> materialized = new ConcurrentHashMap<>();
+    private final String[] titles;
+
+    private MappedTaskSnapshot(FileChannel channel, MappedByteBuffer[] windows, int taskCount, int titleCount,
+                               long recordsPos, long titleTablePos, long idTablePos) {
+        this.channel = channel;
+        this.windows = windows;
+        this.taskCount = taskCount;
+        this.titleCount = titleCount;
+        this.recordsPos = recordsPos;
+        this.titleTablePos = titleTablePos;
+        this.idTablePos = idTablePos;
+        this.titles = new String[titleCount + 1];
+    }
+
+    public static MappedTaskSnapshot open(String filename) throws IOException {
+        FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            long[] footer = TaskSnapshot.readFooter(channel, filename);
+            int windowCount = (int) ((size + WINDOW_MASK) >>> WINDOW_SHIFT);
+            MappedByteBuffer[] windows = new MappedByteBuffer[windowCount];
+            for (int i = 0; i < windowCount; i++) {
+                long start = (long) i << WINDOW_SHIFT;
+                windows[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(WINDOW_MASK + 1, size - start));
+            }
+
+            Cursor header = new Cursor(windows, 0);
+            if (header.getInt() != TaskSnapshot.MAGIC) {
+                throw new IOException("Not a task snapshot: " + filename);
+            }
+            byte version = header.getByte();
+            if (version < 2) {
+                throw new IOException("Snapshot version " + version + " has no offset table; re-save it to map it: " + filename);
+            }
+            int taskCount = header.getInt();
+            int titleCount = header.getInt();
+            if (taskCount < 0 || titleCount < 0
+                    || footer[2] - footer[1] != (long) titleCount * 8
+                    || footer[2] + (long) taskCount * 12 + TaskSnapshot.FOOTER_SIZE != size) {
+                throw new IOException("Snapshot is truncated or corrupt: " + filename);
+            }
+            return new MappedTaskSnapshot(channel, windows, taskCount, titleCount, footer[0], footer[1], footer[2]);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public int size() {
+        return taskCount;
+    }
+
+    // Number of tasks decoded so far
+    public int materializedCount() {
+        return materialized.size();
+    }
+
+    // Returns the task with the given ID, decoding it on first access, or null if absent
+    public Task get(int id) throws IOException {
+        Task cached = materialized.get(id);
+        if (cached != null) {
+            return cached;
+        }
+        long offset = recordOffset(id);
+        if (offset < 0) {
+            return null;
+        }
+        Cursor cursor = new Cursor(windows, offset);
+        Task task = TaskSnapshot.readRecord(cursor, cursor.getByte(), this::title);
+        Task raced = materialized.putIfAbsent(id, task);
+        return raced != null ? raced : task;
+    }
+
+    public boolean contains(int id) {
+        return findId(id) >= 0;
+    }
+
+    public boolean isCompleted(int id) {
+        long offset = recordOffset(id);
+        return offset >= 0 && (byteAt(offset) & TaskSnapshot.FLAG_COMPLETED) != 0;
+    }
+
+    // Visits every task in file order without caching them
+    public void forEach(Consumer<Task> action) throws IOException {
+        Cursor cursor = new Cursor(windows, recordsPos);
+        for (int i = 0; i < taskCount; i++) {
+            Task task = TaskSnapshot.readRecord(cursor, cursor.getByte(), this::title);
+            Task cached = materialized.get(task.getId());
+            action.accept(cached != null ? cached : task);
+        }
+    }
+
+    private long recordOffset(int id) {
+        int index = findId(id);
+        return index < 0 ? -1 : longAt(idTablePos + (long) taskCount * 4 + (long) index * 8);
+    }
+
+    // Binary search over the sorted id column of the offset table
+    private int findId(int id) {
+        int low = 0;
+        int high = taskCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midId = intAt(idTablePos + (long) mid * 4);
+            if (midId < id) {
+                low = mid + 1;
+            } else if (midId > id) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private String title(long ref) throws IOException {
+        if (ref == 0) {
+            return null;
+        }
+        if (ref > titleCount) {
+            throw new IOException("Title reference " + ref + " out of range");
+        }
+        String title = titles[(int) ref];
+        if (title == null) {
+            Cursor cursor = new Cursor(windows, longAt(titleTablePos + (ref - 1) * 8));
+            long length = cursor.getVarLong();
+            if (length < 0 || length > Integer.MAX_VALUE) {
+                throw new IOException("Invalid string length " + length);
+            }
+            byte[] bytes = new byte[(int) length];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = cursor.getByte();
+            }
+            title = new String(bytes, StandardCharsets.UTF_8);
+            titles[(int) ref] = title;
+        }
+        return title;
+    }
+
+    private byte byteAt(long pos) {
+        return windows[(int) (pos >>> WINDOW_SHIFT)].get((int) (pos & WINDOW_MASK));
+    }
+
+    private int intAt(long pos) {
+        int local = (int) (pos & WINDOW_MASK);
+        MappedByteBuffer window = windows[(int) (pos >>> WINDOW_SHIFT)];
+        if (local + 4 <= window.limit()) {
+            return window.getInt(local);
+        }
+        return new Cursor(windows, pos).getInt();
+    }
+
+    private long longAt(long pos) {
+        int local = (int) (pos & WINDOW_MASK);
+        MappedByteBuffer window = windows[(int) (pos >>> WINDOW_SHIFT)];
+        if (local + 8 <= window.limit()) {
+            return window.getLong(local);
+        }
+        Cursor cursor = new Cursor(windows, pos);
+        return ((long) cursor.getInt() << 32) | (cursor.getInt() & 0xFFFFFFFFL);
+    }
+
+    @Override
+    public void close() throws IOException {
+        materialized.clear();
+        channel.close();
+    }
+
+    // Byte-at-a-time reader over the mapped windows; records may straddle a window boundary
+    private static class Cursor implements TaskSnapshot.Source {
+        private final MappedByteBuffer[] windows;
+        private long position;
+
+        Cursor(MappedByteBuffer[] windows, long position) {
+            this.windows = windows;
+            this.position = position;
+        }
+
+        @Override
+        public byte getByte() {
+            byte b = windows[(int) (position >>> WINDOW_SHIFT)].get((int) (position & WINDOW_MASK));
+            position++;
+            return b;
+        }
+
+        int getInt() {
+            return ((getByte() & 0xFF) << 24) | ((getByte() & 0xFF) << 16) | ((getByte() & 0xFF) << 8) | (getByte() & 0xFF);
+        }
+    }
+}
@@ -0,0 +1,239 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Objects;
+
+// PackedTaskStore in direct ByteBuffers, outside the Java heap. Tens of millions
+// of tasks add a few hundred buffer objects to the heap instead of several
+// objects per task, so garbage collections neither trace nor copy them.
+//
+//   record, 16 bytes: id int | deadline epoch day int | flags byte | 3 unused | title ref int
+//   title area:       per title, its UTF-8 length (int) then the bytes, 4-byte aligned
+//
+// Records and titles are allocated in chunks, so the store is not limited to
+// one 2 GB buffer; a title never straddles a chunk. The title ref counts 4-byte
+// units, which addresses 16 GB of titles. Direct memory is released once the
+// store is unreachable and its buffers are collected; -XX:MaxDirectMemorySize
+// caps it.
+public class OffHeapTaskStore extends PackedTaskStore {
+    private static final int RECORD_BYTES = 16;
+    private static final int RECORD_CHUNK_SHIFT = 16; // 65536 records (1 MB) per chunk
+    private static final int RECORD_CHUNK_MASK = (1 << RECORD_CHUNK_SHIFT) - 1;
+    private static final int TITLE_CHUNK_SHIFT = 24; // In 4-byte units: 64 MB per chunk
+    private static final int TITLE_CHUNK_BYTES = 4 << TITLE_CHUNK_SHIFT;
+    private static final int MIN_TITLE_CHUNK_BYTES = 64 << 10;
+    private static final int MAX_TITLE_CHUNK = -1 >>> TITLE_CHUNK_SHIFT; // Highest chunk a title ref can address
+
+    // Arrays are replaced on growth; volatile so views read outside the service's lock see whole arrays
+    private volatile ByteBuffer[] records;
+    private volatile ByteBuffer[] titles;
+    private int titleChunk; // Chunk being filled
+    private int titlePosition; // Next free byte in it
+    private volatile int size;
+
+    public OffHeapTaskStore() {
+        this(16);
+    }
+
+    public OffHeapTaskStore(int expectedSize) {
+        records = new ByteBuffer[Math.max((expectedSize >> RECORD_CHUNK_SHIFT) + 1, 1)];
+        titles = new ByteBuffer[1];
+        titles[0] = allocate(MIN_TITLE_CHUNK_BYTES);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public TaskStore newEmpty(int expectedSize) {
+        return new OffHeapTaskStore(expectedSize);
+    }
+
+    // Direct memory allocated for records and titles, including unused capacity
+    public long offHeapBytes() {
+        long bytes = 0;
+        for (ByteBuffer chunk : records) {
+            bytes += chunk != null ? chunk.capacity() : 0;
+        }
+        for (ByteBuffer chunk : titles) {
+            bytes += chunk.capacity();
+        }
+        return bytes;
+    }
+
+    @Override
+    protected int maxTitleBytes() {
+        return TITLE_CHUNK_BYTES - 4;
+    }
+
+    // Places the titles the way appendTitle() will and allocates every chunk that takes,
+    // so the appends that follow allocate nothing
+    @Override
+    protected void reserve(int count, IntList titleLengths) {
+        if (count > Integer.MAX_VALUE - size) {
+            throw new IllegalStateException("Task store is full");
+        }
+        int chunk = titleChunk;
+        long position = titlePosition;
+        long currentEnd = titlePosition; // Bytes the current chunk must hold
+        for (int i = 0; i < titleLengths.size(); i++) {
+            long needed = (4L + titleLengths.get(i) + 3) & ~3;
+            if (position + needed > TITLE_CHUNK_BYTES) {
+                if (chunk == MAX_TITLE_CHUNK) {
+                    throw new IllegalStateException("Title area is full");
+                }
+                chunk++;
+                position = 0;
+            }
+            position += needed;
+            if (chunk == titleChunk) {
+                currentEnd = position;
+            }
+        }
+        growTitleChunk(chunk > titleChunk ? TITLE_CHUNK_BYTES : currentEnd); // appendTitle() fills it up before moving on
+        if (chunk >= titles.length) {
+            ByteBuffer[] grown = Arrays.copyOf(titles, chunk + 1);
+            for (int c = titles.length; c <= chunk; c++) {
+                grown[c] = allocate(TITLE_CHUNK_BYTES);
+            }
+            titles = grown;
+        }
+        if (count > 0) {
+            for (int index = size >>> RECORD_CHUNK_SHIFT; index <= (size + count - 1) >>> RECORD_CHUNK_SHIFT; index++) {
+                recordChunk(index << RECORD_CHUNK_SHIFT);
+            }
+        }
+    }
+
+    @Override
+    protected int append(int id, int flags, int deadline, byte[] title) {
+        int slot = size;
+        if (slot == Integer.MAX_VALUE) {
+            throw new IllegalStateException("Task store is full");
+        }
+        int ref = title != null ? appendTitle(title) : 0;
+        ByteBuffer chunk = recordChunk(slot);
+        int pos = (slot & RECORD_CHUNK_MASK) * RECORD_BYTES;
+        chunk.putInt(pos, id);
+        chunk.putInt(pos + 4, deadline);
+        chunk.put(pos + 8, (byte) flags);
+        chunk.putInt(pos + 12, ref);
+        size = slot + 1; // Publishes the slot
+        return slot;
+    }
+
+    @Override
+    protected int flags(int slot) {
+        Objects.checkIndex(slot, size);
+        return records[slot >>> RECORD_CHUNK_SHIFT].get(recordPosition(slot) + 8);
+    }
+
+    @Override
+    protected void setFlags(int slot, int flags) {
+        records[slot >>> RECORD_CHUNK_SHIFT].put(recordPosition(slot) + 8, (byte) flags);
+    }
+
+    @Override
+    protected int packedId(int slot) {
+        return records[slot >>> RECORD_CHUNK_SHIFT].getInt(recordPosition(slot));
+    }
+
+    @Override
+    protected int packedDeadline(int slot) {
+        return records[slot >>> RECORD_CHUNK_SHIFT].getInt(recordPosition(slot) + 4);
+    }
+
+    @Override
+    protected void setPackedDeadline(int slot, int deadline) {
+        records[slot >>> RECORD_CHUNK_SHIFT].putInt(recordPosition(slot) + 4, deadline);
+    }
+
+    @Override
+    protected String packedTitle(int slot) {
+        int ref = records[slot >>> RECORD_CHUNK_SHIFT].getInt(recordPosition(slot) + 12);
+        ByteBuffer chunk = titles[ref >>> TITLE_CHUNK_SHIFT];
+        int pos = (ref & ((1 << TITLE_CHUNK_SHIFT) - 1)) << 2;
+        byte[] utf8 = new byte[chunk.getInt(pos)];
+        chunk.get(pos + 4, utf8); // Absolute bulk get: the buffer's position is never used
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    protected int packedTitleUtf8(int slot, byte[] buffer, int offset) {
+        int ref = records[slot >>> RECORD_CHUNK_SHIFT].getInt(recordPosition(slot) + 12);
+        ByteBuffer chunk = titles[ref >>> TITLE_CHUNK_SHIFT];
+        int pos = (ref & ((1 << TITLE_CHUNK_SHIFT) - 1)) << 2;
+        int length = chunk.getInt(pos);
+        if (length <= buffer.length - offset) {
+            chunk.get(pos + 4, buffer, offset, length);
+        }
+        return length;
+    }
+
+    private static int recordPosition(int slot) {
+        return (slot & RECORD_CHUNK_MASK) * RECORD_BYTES;
+    }
+
+    private ByteBuffer recordChunk(int slot) {
+        int index = slot >>> RECORD_CHUNK_SHIFT;
+        if (index == records.length) {
+            records = Arrays.copyOf(records, records.length + (records.length >> 1) + 1);
+        }
+        if (records[index] == null) {
+            records[index] = allocate(RECORD_BYTES << RECORD_CHUNK_SHIFT);
+        }
+        return records[index];
+    }
+
+    // Returns the title ref
+    private int appendTitle(byte[] utf8) {
+        int needed = (4 + utf8.length + 3) & ~3;
+        if (titlePosition + needed > titles[titleChunk].capacity()) {
+            growTitleChunk(titlePosition + (long) needed);
+            if (titlePosition + needed > titles[titleChunk].capacity()) {
+                nextTitleChunk();
+            }
+        }
+        ByteBuffer chunk = titles[titleChunk];
+        int ref = (titleChunk << TITLE_CHUNK_SHIFT) | (titlePosition >>> 2);
+        chunk.putInt(titlePosition, utf8.length);
+        chunk.put(titlePosition + 4, utf8);
+        titlePosition += needed;
+        return ref;
+    }
+
+    // The first chunk starts small and doubles up to the full chunk size
+    private void growTitleChunk(long minCapacity) {
+        ByteBuffer chunk = titles[titleChunk];
+        if (chunk.capacity() >= Math.min(minCapacity, TITLE_CHUNK_BYTES)) {
+            return;
+        }
+        long capacity = Math.max(2L * chunk.capacity(), minCapacity);
+        ByteBuffer grown = allocate((int) Math.min(capacity, TITLE_CHUNK_BYTES));
+        grown.put(0, chunk, 0, titlePosition);
+        ByteBuffer[] replaced = titles.clone();
+        replaced[titleChunk] = grown;
+        titles = replaced;
+    }
+
+    // Moves on to the next chunk, allocated by reserve() or here
+    private void nextTitleChunk() {
+        if (titleChunk == MAX_TITLE_CHUNK) {
+            throw new IllegalStateException("Title area is full");
+        }
+        if (titleChunk + 1 == titles.length) {
+            ByteBuffer[] grown = Arrays.copyOf(titles, titles.length + 1);
+            grown[grown.length - 1] = allocate(TITLE_CHUNK_BYTES);
+            titles = grown;
+        }
+        titleChunk++;
+        titlePosition = 0;
+    }
+
+    private static ByteBuffer allocate(int bytes) {
+        return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+    }
+}
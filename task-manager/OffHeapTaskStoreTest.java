@@ -0,0 +1,200 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+// Round trips through OffHeapTaskStore across its chunk boundaries: records past the
+// first record chunk (the chunk array grows), titles that grow the first title chunk
+// from 64 KB and then roll over to the next 64 MB chunk, and title refs into that
+// chunk. Each is checked after single adds, after a batch add (which reserves every
+// chunk up front), and after a snapshot save and eager or mapped load.
+//
+//   javac *.java && java OffHeapTaskStoreTest
+public class OffHeapTaskStoreTest {
+    private static final int RECORDS_PER_CHUNK = 1 << 16;
+    private static final int TITLE_CHUNK_BYTES = 64 << 20;
+    private static final int BIG_TITLE_CHARS = 1 << 20; // 70 of them fill more than a title chunk
+    private static final int BIG_TITLES = 70;
+
+    private static int testsPassed = 0;
+    private static int testsFailed = 0;
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("===== OFF-HEAP STORE TESTS =====\n");
+        testRecordChunks();
+        testTitleChunkRollover(false);
+        testTitleChunkRollover(true);
+
+        printResults();
+        if (testsFailed > 0) {
+            System.exit(1);
+        }
+    }
+
+    // Two full record chunks and a few records of a third, from a store sized for 16
+    private static void testRecordChunks() throws Exception {
+        int count = 2 * RECORDS_PER_CHUNK + 3;
+        TaskService service = new TaskService(new OffHeapTaskStore());
+        for (int i = 0; i < count; i++) {
+            service.addTask(smallTask(i));
+        }
+        assertTrue("records: " + count + " tasks read back", matchesSmallTasks(service, count));
+
+        int secondChunk = RECORDS_PER_CHUNK + 1;
+        int thirdChunk = 2 * RECORDS_PER_CHUNK;
+        service.delayTask(id(secondChunk), 3);
+        service.markCompleted(id(thirdChunk));
+        Task delayed = service.getTaskOrDefault(id(secondChunk), () -> null);
+        assertTrue("records: delay in the second chunk",
+                ((Schedulable) delayed).getDeadline().equals(deadline(secondChunk).plusDays(3)));
+        assertTrue("records: completion in the third chunk",
+                service.query(new TaskQuery.Builder().setCompleted(true).build()).size() == 1);
+
+        withSnapshot(service, (file, mapped) -> {
+            TaskService loaded = new TaskService(new OffHeapTaskStore());
+            loaded.loadFromFile(file, mapped);
+            assertTrue("records: " + (mapped ? "mapped" : "eager") + " load matches",
+                    export(service).equals(export(loaded)));
+        });
+    }
+
+    // Titles of about 1 MB each: the first chunk doubles from 64 KB to 64 MB, then later
+    // titles go to the second chunk, whose refs need the chunk bits of the title ref
+    private static void testTitleChunkRollover(boolean batch) throws Exception {
+        String mode = batch ? "batch" : "single";
+        OffHeapTaskStore store = new OffHeapTaskStore();
+        TaskService service = new TaskService(store);
+        if (batch) {
+            List<Task> tasks = new ArrayList<>();
+            for (int i = 0; i < BIG_TITLES; i++) {
+                tasks.add(bigTask(i));
+            }
+            service.addTasks(tasks);
+        } else {
+            for (int i = 0; i < BIG_TITLES; i++) {
+                service.addTask(bigTask(i));
+            }
+        }
+        assertTrue("titles (" + mode + "): more than one title chunk in use", store.offHeapBytes() > TITLE_CHUNK_BYTES);
+        assertTrue("titles (" + mode + "): every title read back", matchesBigTasks(service));
+
+        withSnapshot(service, (file, mapped) -> {
+            TaskService loaded = new TaskService(new OffHeapTaskStore());
+            loaded.loadFromFile(file, mapped);
+            assertTrue("titles (" + mode + "): " + (mapped ? "mapped" : "eager") + " load reads back every title",
+                    matchesBigTasks(loaded));
+        });
+    }
+
+    interface SnapshotCheck {
+        void run(String file, boolean mapped) throws Exception;
+    }
+
+    // Saves the service to a temporary snapshot and runs the check with an eager and a mapped load
+    private static void withSnapshot(TaskService service, SnapshotCheck check) throws Exception {
+        Path dir = Files.createTempDirectory("offheap");
+        String file = dir.resolve("tasks.bin").toString();
+        try {
+            service.saveToFile(file);
+            check.run(file, false);
+            check.run(file, true);
+        } finally {
+            try (Stream<Path> files = Files.list(dir)) {
+                for (Path p : (Iterable<Path>) files::iterator) {
+                    Files.delete(p);
+                }
+            }
+            Files.delete(dir);
+        }
+    }
+
+    private static boolean matchesSmallTasks(TaskService service, int count) {
+        for (int i = 0; i < count; i++) {
+            Task t = service.getTaskOrDefault(id(i), () -> null);
+            if (t == null || !t.getTitle().equals(title(i)) || t.getPriority() != Priority.values()[i % 3]
+                    || !((Schedulable) t).getDeadline().equals(deadline(i))) {
+                System.out.println("  mismatch at " + i + ": " + t);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean matchesBigTasks(TaskService service) {
+        for (int i = 0; i < BIG_TITLES; i++) {
+            Task t = service.getTaskOrDefault(i, () -> null);
+            if (t == null || !t.getTitle().equals(bigTitle(i))) {
+                System.out.println("  mismatch at " + i);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // IDs are spread out so slot and ID differ
+    private static int id(int i) {
+        return i * 7 + 1;
+    }
+
+    private static String title(int i) {
+        return "Task " + i + (i % 5 == 0 ? " é" : "");
+    }
+
+    private static LocalDate deadline(int i) {
+        return LocalDate.ofEpochDay(20_000 + i % 400);
+    }
+
+    private static Task smallTask(int i) {
+        return new DeadlineTask(id(i), title(i), Priority.values()[i % 3], deadline(i));
+    }
+
+    // Multi-byte UTF-8 and a length that is not a multiple of 4, so padding is exercised
+    private static String bigTitle(int i) {
+        char[] chars = new char[BIG_TITLE_CHARS + i % 7];
+        Arrays.fill(chars, (char) ('a' + i % 26));
+        chars[0] = 'é';
+        chars[chars.length - 1] = '€';
+        return i + new String(chars);
+    }
+
+    private static Task bigTask(int i) {
+        return new Task(i, bigTitle(i), Priority.values()[i % 3]);
+    }
+
+    private static String export(TaskService service) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.exportTasks(out, TaskImporter.Format.CSV);
+        return out.toString("UTF-8");
+    }
+
+    private static void assertTrue(String testName, boolean condition) {
+        if (condition) {
+            pass(testName);
+        } else {
+            fail(testName);
+        }
+    }
+
+    private static void pass(String testName) {
+        System.out.println("✓ PASS: " + testName);
+        testsPassed++;
+    }
+
+    private static void fail(String testName) {
+        System.out.println("✗ FAIL: " + testName);
+        testsFailed++;
+    }
+
+    private static void printResults() {
+        System.out.println("===== TEST RESULTS =====");
+        System.out.println("Passed: " + testsPassed);
+        System.out.println("Failed: " + testsFailed);
+        System.out.println("Total:  " + (testsPassed + testsFailed));
+        System.out.println("Status: " + (testsFailed == 0 ? "ALL TESTS PASSED ✓" : "SOME TESTS FAILED ✗"));
+    }
+}
@@ -0,0 +1,347 @@
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Base for stores that pack each task into primitive fields - an ID, a flags
+// byte, a deadline epoch day and a UTF-8 title - and hand out flyweight views
+// (ColumnarTaskStore, OffHeapTaskStore). A view reads the packed fields on each
+// call. delay() and setDeadline() on a view go through the store's scheduler, i.e.
+// the owning TaskService's delayTask path; only that path writes a deadline, under
+// the service's write lock. Tasks of other classes, and the rare value the packing
+// cannot hold exactly (a deadline outside the int range, a title with a lone
+// surrogate or too long for a record), are kept as objects instead; a DeadlineTask
+// among them is adopted like in HeapTaskStore.
+public abstract class PackedTaskStore implements TaskStore {
+    protected static final int PRIORITY_MASK = 0x07; // Priority ordinal + 1, 0 = null
+    protected static final int DEADLINE_TASK = 0x08; // A DeadlineTask (its deadline may still be null)
+    protected static final int NULL_TITLE = 0x10;
+    protected static final int OBJECT = 0x20; // Kept as an object in the objects map
+    protected static final int NULL_DEADLINE = Integer.MIN_VALUE;
+    private static final Priority[] PRIORITIES = Priority.values();
+
+    private final Map<Integer, Task> objects = new ConcurrentHashMap<>();
+    private volatile Scheduler scheduler;
+
+    // Appends a record and returns its slot; title is null for NULL_TITLE and OBJECT records
+    protected abstract int append(int id, int flags, int deadline, byte[] title);
+
+    // Makes room for count more records and the packed titles among them, of the given
+    // UTF-8 lengths in order, or throws IllegalStateException with nothing changed
+    protected abstract void reserve(int count, IntList titleLengths);
+
+    // Throws IndexOutOfBoundsException for a slot not added yet
+    protected abstract int flags(int slot);
+
+    protected abstract void setFlags(int slot, int flags);
+
+    protected abstract int packedId(int slot);
+
+    protected abstract int packedDeadline(int slot);
+
+    protected abstract void setPackedDeadline(int slot, int deadline);
+
+    protected abstract String packedTitle(int slot);
+
+    // The contract of TaskStore.getTitleUtf8() for a packed, non-null title
+    protected abstract int packedTitleUtf8(int slot, byte[] buffer, int offset);
+
+    // Longest UTF-8 title a record can hold
+    protected int maxTitleBytes() {
+        return Integer.MAX_VALUE - 8;
+    }
+
+    @Override
+    public int add(Task task) {
+        LocalDate deadline = task instanceof DeadlineTask ? ((DeadlineTask) task).getDeadline() : null;
+        String title = task.getTitle();
+        byte[] utf8 = title != null && isWellFormed(title) ? title.getBytes(StandardCharsets.UTF_8) : null;
+        int flags = task.getPriority() != null ? task.getPriority().ordinal() + 1 : 0;
+        if (!isPackable(task) || !fitsInt(deadline)
+                || (title != null && (utf8 == null || utf8.length > maxTitleBytes()))) {
+            if (task instanceof DeadlineTask && isPackable(task)) {
+                task = DeadlineTask.adopt((DeadlineTask) task, scheduler);
+            }
+            objects.put(size(), task); // Before append publishes the slot
+            return append(task.getId(), flags | OBJECT, NULL_DEADLINE, null);
+        }
+        if (task instanceof DeadlineTask) {
+            flags |= DEADLINE_TASK;
+        }
+        if (title == null) {
+            flags |= NULL_TITLE;
+        }
+        return append(task.getId(), flags, deadline != null ? (int) deadline.toEpochDay() : NULL_DEADLINE, utf8);
+    }
+
+    // The titles add() will pack, found by the same rules without encoding them
+    @Override
+    public void reserve(List<Task> batch) {
+        IntList titleLengths = new IntList(batch.size());
+        for (Task task : batch) {
+            LocalDate deadline = task instanceof DeadlineTask ? ((DeadlineTask) task).getDeadline() : null;
+            String title = task.getTitle();
+            if (title != null && isPackable(task) && fitsInt(deadline)) {
+                int length = utf8Length(title);
+                if (length >= 0 && length <= maxTitleBytes()) {
+                    titleLengths.add(length);
+                }
+            }
+        }
+        reserve(batch.size(), titleLengths);
+    }
+
+    @Override
+    public Task get(int slot) {
+        int flags = flags(slot);
+        if ((flags & OBJECT) != 0) {
+            return objects.get(slot);
+        }
+        return (flags & DEADLINE_TASK) != 0 ? new DeadlineTaskView(this, slot) : new TaskView(this, slot);
+    }
+
+    @Override
+    public int getId(int slot) {
+        return (flags(slot) & OBJECT) != 0 ? objects.get(slot).getId() : packedId(slot);
+    }
+
+    @Override
+    public String getTitle(int slot) {
+        int flags = flags(slot);
+        if ((flags & OBJECT) != 0) {
+            return objects.get(slot).getTitle();
+        }
+        return (flags & NULL_TITLE) != 0 ? null : packedTitle(slot);
+    }
+
+    @Override
+    public int getTitleUtf8(int slot, byte[] buffer, int offset) {
+        int flags = flags(slot);
+        if ((flags & OBJECT) != 0) {
+            return TaskStore.super.getTitleUtf8(slot, buffer, offset);
+        }
+        return (flags & NULL_TITLE) != 0 ? -1 : packedTitleUtf8(slot, buffer, offset);
+    }
+
+    @Override
+    public Priority getPriority(int slot) {
+        int flags = flags(slot);
+        if ((flags & OBJECT) != 0) {
+            return objects.get(slot).getPriority();
+        }
+        int p = flags & PRIORITY_MASK;
+        return p != 0 ? PRIORITIES[p - 1] : null;
+    }
+
+    @Override
+    public long getDeadlineDay(int slot) {
+        int flags = flags(slot);
+        if ((flags & OBJECT) != 0) {
+            Task task = objects.get(slot);
+            LocalDate deadline = task instanceof Schedulable ? ((Schedulable) task).getDeadline() : null;
+            return deadline != null ? deadline.toEpochDay() : NO_DEADLINE;
+        }
+        int day = packedDeadline(slot);
+        return (flags & DEADLINE_TASK) != 0 && day != NULL_DEADLINE ? day : NO_DEADLINE;
+    }
+
+    @Override
+    public Task detach(int slot) {
+        int flags = flags(slot);
+        if ((flags & OBJECT) != 0) {
+            return objects.get(slot);
+        }
+        if ((flags & DEADLINE_TASK) != 0) {
+            return new DeadlineTask(getId(slot), getTitle(slot), getPriority(slot), getDeadline(slot));
+        }
+        return new Task(getId(slot), getTitle(slot), getPriority(slot));
+    }
+
+    private LocalDate getDeadline(int slot) {
+        long day = getDeadlineDay(slot);
+        return day != NO_DEADLINE ? LocalDate.ofEpochDay(day) : null;
+    }
+
+    @Override
+    public void delay(int slot, int days) {
+        Task object = (flags(slot) & OBJECT) != 0 ? objects.get(slot) : null;
+        if (object != null && !(object instanceof DeadlineTask)) {
+            ((Schedulable) object).delay(days); // Other Schedulable classes have no scheduler
+        } else {
+            setDeadline(slot, getDeadline(slot).plusDays(days));
+        }
+    }
+
+    @Override
+    public void setScheduler(Scheduler scheduler) {
+        this.scheduler = scheduler; // Views read it on each call
+        for (Task task : objects.values()) {
+            if (task.getClass() == DeadlineTask.class) {
+                ((DeadlineTask) task).setScheduler(scheduler);
+            }
+        }
+    }
+
+    // Called by delay(), i.e. by the service under its write lock, and by views of a
+    // store without a scheduler
+    private void setDeadline(int slot, LocalDate deadline) {
+        int flags = flags(slot);
+        if ((flags & OBJECT) != 0) {
+            ((DeadlineTask) objects.get(slot)).applyDeadline(deadline);
+        } else if (fitsInt(deadline)) {
+            setPackedDeadline(slot, deadline != null ? (int) deadline.toEpochDay() : NULL_DEADLINE);
+        } else {
+            // Out of the packed range: continue as an object, which live views delegate to
+            DeadlineTask object = new DeadlineTask(getId(slot), getTitle(slot), getPriority(slot), deadline);
+            object.setScheduler(scheduler);
+            objects.put(slot, object);
+            setFlags(slot, flags | OBJECT);
+        }
+    }
+
+    // Plain tasks and deadline tasks (including views of another packed store) can be packed
+    static boolean isPackable(Task task) {
+        Class<?> type = task.getClass();
+        return type == Task.class || type == DeadlineTask.class || type == TaskView.class || type == DeadlineTaskView.class;
+    }
+
+    private static boolean fitsInt(LocalDate deadline) {
+        return deadline == null
+                || (deadline.toEpochDay() > NULL_DEADLINE && deadline.toEpochDay() <= Integer.MAX_VALUE);
+    }
+
+    // UTF-8 length of the title, or -1 if it has an unpaired surrogate (and is kept as an object)
+    private static int utf8Length(String title) {
+        long bytes = 0;
+        for (int i = 0; i < title.length(); i++) {
+            char c = title.charAt(i);
+            if (c < 0x80) {
+                bytes++;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (!Character.isSurrogate(c)) {
+                bytes += 3;
+            } else if (Character.isHighSurrogate(c) && i + 1 < title.length() && Character.isLowSurrogate(title.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else {
+                return -1;
+            }
+        }
+        return (int) Math.min(bytes, Integer.MAX_VALUE);
+    }
+
+    // UTF-8 round-trips the title unless it has an unpaired surrogate
+    private static boolean isWellFormed(String title) {
+        for (int i = 0; i < title.length(); i++) {
+            char c = title.charAt(i);
+            if (Character.isHighSurrogate(c) && i + 1 < title.length() && Character.isLowSurrogate(title.charAt(i + 1))) {
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Flyweight over one slot; serializes as a detached copy
+    private static final class TaskView extends Task {
+        private static final long serialVersionUID = 1L;
+        private final transient PackedTaskStore store;
+        private final transient int slot;
+
+        TaskView(PackedTaskStore store, int slot) {
+            super(0, null, null);
+            this.store = store;
+            this.slot = slot;
+        }
+
+        @Override
+        public int getId() {
+            return store.getId(slot);
+        }
+
+        @Override
+        public String getTitle() {
+            return store.getTitle(slot);
+        }
+
+        @Override
+        public Priority getPriority() {
+            return store.getPriority(slot);
+        }
+
+        // Views of the same slot are the same task
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof TaskView && ((TaskView) o).store == store && ((TaskView) o).slot == slot;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(store) * 31 + slot;
+        }
+
+        private Object writeReplace() {
+            return store.detach(slot);
+        }
+    }
+
+    private static final class DeadlineTaskView extends DeadlineTask {
+        private static final long serialVersionUID = 1L;
+        private final transient PackedTaskStore store;
+        private final transient int slot;
+
+        DeadlineTaskView(PackedTaskStore store, int slot) {
+            super(0, null, null, null);
+            this.store = store;
+            this.slot = slot;
+        }
+
+        @Override
+        public int getId() {
+            return store.getId(slot);
+        }
+
+        @Override
+        public String getTitle() {
+            return store.getTitle(slot);
+        }
+
+        @Override
+        public Priority getPriority() {
+            return store.getPriority(slot);
+        }
+
+        @Override
+        public LocalDate getDeadline() {
+            return store.getDeadline(slot);
+        }
+
+        @Override
+        TaskStore.Scheduler scheduler() {
+            return store.scheduler;
+        }
+
+        @Override
+        void applyDeadline(LocalDate deadline) {
+            store.setDeadline(slot, deadline);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof DeadlineTaskView && ((DeadlineTaskView) o).store == store
+                    && ((DeadlineTaskView) o).slot == slot;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(store) * 31 + slot;
+        }
+
+        private Object writeReplace() {
+            return store.detach(slot);
+        }
+    }
+}
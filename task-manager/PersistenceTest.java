@@ -0,0 +1,413 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Round trips through every way TaskService persists tasks: legacy Java-serialized
+// tasks.ser files upgraded to the version 2 snapshot, version 1 snapshots, mapped
+// against eager loads, snapshots with a truncated or corrupt footer (rejected, the
+// service left as it was), write-ahead logs with a torn or corrupt tail, a log
+// replayed over a snapshot that already holds it, and BackupDaemon backups restored
+// on load. Each case compares the loaded service's CSV export with the expected one.
+//
+//   javac *.java && java PersistenceTest
+public class PersistenceTest {
+    private static int testsPassed = 0;
+    private static int testsFailed = 0;
+
+    private static Path dir;
+
+    interface Test {
+        void run() throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("===== PERSISTENCE TESTS =====\n");
+        run("legacy tasks.ser to version 2", PersistenceTest::testLegacyToVersion2);
+        run("version 1 snapshot", PersistenceTest::testVersion1Read);
+        run("mapped against eager load", PersistenceTest::testMappedMatchesEager);
+        run("corrupt snapshots", PersistenceTest::testCorruptSnapshotsRejected);
+        run("write-ahead log tail", PersistenceTest::testWriteAheadLogTornTail);
+        run("write-ahead log over its snapshot", PersistenceTest::testWriteAheadLogReplayIsIdempotent);
+        run("backup restore", PersistenceTest::testBackupReplay);
+
+        printResults();
+        if (testsFailed > 0) {
+            System.exit(1);
+        }
+    }
+
+    // Each test gets its own empty directory
+    private static void run(String name, Test test) throws Exception {
+        System.out.println("--- " + name + " ---");
+        dir = Files.createTempDirectory("persistence");
+        try {
+            test.run();
+        } finally {
+            try (Stream<Path> files = Files.list(dir)) {
+                for (Path p : (Iterable<Path>) files::iterator) {
+                    Files.delete(p);
+                }
+            }
+            Files.delete(dir);
+        }
+        System.out.println();
+    }
+
+    // A tasks.ser from before the binary snapshot, in both legacy layouts: the task list
+    // and then either the completed IDs or a CompletionSet of completed positions
+    private static void testLegacyToVersion2() throws Exception {
+        TaskService expected = sample();
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            tasks.add(task(i));
+        }
+        Set<Integer> completedIds = new HashSet<>(Arrays.asList(id(3), id(7), id(12)));
+        CompletionSet completedSlots = new CompletionSet(tasks.size());
+        for (int slot : new int[] { 3, 7, 12 }) {
+            completedSlots.add(slot);
+        }
+
+        for (Object completion : new Object[] { completedIds, completedSlots }) {
+            String kind = completion instanceof CompletionSet ? "completed positions" : "completed IDs";
+            String file = file("tasks.ser");
+            try (ObjectOutputStream out = new ObjectOutputStream(Files.newOutputStream(dir.resolve("tasks.ser")))) {
+                out.writeObject(new ArrayList<>(tasks));
+                out.writeObject(completion);
+            }
+            assertTrue("legacy (" + kind + "): file is not a binary snapshot", !TaskSnapshot.isSnapshot(file));
+            TaskService legacy = new TaskService();
+            legacy.loadFromFile(file);
+            assertTrue("legacy (" + kind + "): tasks and completions imported", export(legacy).equals(export(expected)));
+
+            legacy.saveToFile(file);
+            assertTrue("legacy (" + kind + "): saved as a version 2 snapshot",
+                    TaskSnapshot.isSnapshot(file) && Files.readAllBytes(dir.resolve("tasks.ser"))[4] == 2);
+            TaskService upgraded = new TaskService();
+            upgraded.loadFromFile(file);
+            assertTrue("legacy (" + kind + "): version 2 reload matches", export(upgraded).equals(export(expected)));
+        }
+    }
+
+    // Version 1 ends with the magic right after the records and has no offset tables.
+    // It is built here from a version 2 file, whose first part has the same layout.
+    private static void testVersion1Read() throws Exception {
+        TaskService expected = sample();
+        String file = file("tasks.bin");
+        expected.saveToFile(file);
+        byte[] v2 = Files.readAllBytes(dir.resolve("tasks.bin"));
+        long[] footer = footer(v2);
+        ByteBuffer v1 = ByteBuffer.allocate((int) footer[1] + 4);
+        v1.put(v2, 0, (int) footer[1]).putInt(TaskSnapshot.MAGIC);
+        v1.put(4, (byte) 1);
+        Files.write(dir.resolve("tasks.bin"), v1.array());
+
+        TaskService eager = new TaskService();
+        eager.loadFromFile(file);
+        assertTrue("version 1: eager load matches", export(eager).equals(export(expected)));
+        TaskService mapped = new TaskService();
+        mapped.loadFromFile(file, true); // Cannot be mapped: falls back to a full load
+        assertTrue("version 1: mapped load falls back and matches", export(mapped).equals(export(expected)));
+
+        Files.write(dir.resolve("tasks.bin"), Arrays.copyOf(v1.array(), v1.capacity() - 1));
+        assertTrue("version 1: truncated file rejected", rejected(file));
+    }
+
+    // A mapped load decodes tasks on first use; it must answer exactly like an eager one,
+    // before and after changes. Tasks moved in by a lookup or change come first in the
+    // store, so after those the exports are compared by ID.
+    private static void testMappedMatchesEager() throws Exception {
+        TaskService expected = sample();
+        String file = file("tasks.bin");
+        expected.saveToFile(file);
+        TaskService eager = new TaskService();
+        eager.loadFromFile(file);
+        TaskService untouched = new TaskService();
+        untouched.loadFromFile(file, true);
+        assertTrue("mapped: export matches the eager load", export(untouched).equals(export(eager)));
+
+        TaskService mapped = new TaskService();
+        mapped.loadFromFile(file, true);
+        boolean same = true;
+        for (int i = -1; i <= 20; i++) {
+            Task a = eager.getTaskOrDefault(id(i), () -> null);
+            Task b = mapped.getTaskOrDefault(id(i), () -> null);
+            same &= String.valueOf(a).equals(String.valueOf(b));
+        }
+        assertTrue("mapped: lookups match the eager load", same);
+        TaskQuery overdue = new TaskQuery.Builder().setCompleted(false).setDeadlineRange(null, LocalDate.ofEpochDay(20_005)).build();
+        assertTrue("mapped: queries match the eager load",
+                byId(mapped.query(overdue)).equals(byId(eager.query(overdue))));
+        assertTrue("mapped: tasks match the eager load after lookups", byId(export(mapped)).equals(byId(export(eager))));
+
+        for (TaskService service : new TaskService[] { eager, mapped }) {
+            service.markCompleted(id(5));
+            service.delayTask(id(8), 4);
+            service.addTask(task(30));
+        }
+        assertTrue("mapped: changes match the eager load", byId(export(mapped)).equals(byId(export(eager))));
+        mapped.saveToFile(file("resaved.bin"));
+        TaskService reloaded = new TaskService();
+        reloaded.loadFromFile(file("resaved.bin"), true);
+        assertTrue("mapped: re-saved and mapped again matches", export(reloaded).equals(export(mapped)));
+    }
+
+    // Each damaged copy must be rejected by the eager reader and by the mapper, and a
+    // failed load must leave the service's tasks as they were
+    private static void testCorruptSnapshotsRejected() throws Exception {
+        String file = file("tasks.bin");
+        sample().saveToFile(file);
+        byte[] good = Files.readAllBytes(dir.resolve("tasks.bin"));
+        long[] footer = footer(good);
+        int footerStart = good.length - TaskSnapshot.FOOTER_SIZE;
+
+        List<String> names = new ArrayList<>();
+        List<byte[]> damaged = new ArrayList<>();
+        names.add("truncated by one byte");
+        damaged.add(Arrays.copyOf(good, good.length - 1));
+        names.add("truncated to half");
+        damaged.add(Arrays.copyOf(good, good.length / 2));
+        names.add("footer cut off");
+        damaged.add(Arrays.copyOf(good, footerStart));
+        names.add("footer magic changed");
+        byte[] magic = good.clone();
+        magic[magic.length - 1] ^= 0x5A;
+        damaged.add(magic);
+        names.add("footer title table before the records");
+        byte[] positions = good.clone();
+        ByteBuffer.wrap(positions).putLong(footerStart + 8, footer[0] - 1);
+        damaged.add(positions);
+        names.add("footer records position off by one");
+        byte[] records = good.clone();
+        ByteBuffer.wrap(records).putLong(footerStart, footer[0] + 1);
+        ByteBuffer.wrap(records).putLong(footerStart + 8, footer[1] + 1);
+        damaged.add(records);
+
+        for (int i = 0; i < names.size(); i++) {
+            Files.write(dir.resolve("tasks.bin"), damaged.get(i));
+            assertTrue("corrupt (" + names.get(i) + "): rejected", rejected(file));
+        }
+    }
+
+    // Everything logged before a torn or corrupt entry is replayed; open() cuts the tail off
+    private static void testWriteAheadLogTornTail() throws Exception {
+        String file = file("tasks.bin");
+        Path wal = dir.resolve("tasks.bin.wal");
+        TaskService live = sample();
+        live.saveToFile(file);
+        live.openWriteAheadLog(file);
+        live.addTask(task(40));
+        live.markCompleted(id(40));
+        live.delayTask(id(2), 9);
+        live.closeWriteAheadLog();
+        long intact = Files.size(wal);
+
+        // A crash mid-write: a length prefix promising more bytes than were written
+        try (OutputStream out = Files.newOutputStream(wal, StandardOpenOption.APPEND)) {
+            out.write(new byte[] { 0, 0, 0, 100, 1, 2, 3 });
+        }
+        TaskService replayed = new TaskService();
+        replayed.loadFromFile(file);
+        assertTrue("log: entries before a torn tail replayed", export(replayed).equals(export(live)));
+        TaskJournal.open(wal.toString()).close();
+        assertTrue("log: open() cuts the torn tail off", Files.size(wal) == intact);
+
+        // A corrupt last entry (bad CRC): replay stops before it, so the delay is lost
+        byte[] bytes = Files.readAllBytes(wal);
+        bytes[bytes.length - 1] ^= 0x01;
+        Files.write(wal, bytes);
+        TaskService partial = new TaskService();
+        partial.loadFromFile(file);
+        Task delayed = partial.getTaskOrDefault(id(2), () -> null);
+        assertTrue("log: replay stops at a corrupt entry",
+                partial.getTaskOrDefault(id(40), () -> null) != null
+                        && ((Schedulable) delayed).getDeadline().equals(deadline(2)));
+        long valid = TaskJournal.replay(wal.toString(), null);
+        TaskJournal.open(wal.toString()).close();
+        assertTrue("log: open() cuts the corrupt entry off", Files.size(wal) == valid && valid < intact);
+    }
+
+    // A crash after the snapshot is saved but before the log is truncated leaves both;
+    // replaying the log over the snapshot must not apply its changes twice
+    private static void testWriteAheadLogReplayIsIdempotent() throws Exception {
+        String file = file("tasks.bin");
+        Path wal = dir.resolve("tasks.bin.wal");
+        TaskService live = sample();
+        live.saveToFile(file);
+        live.openWriteAheadLog(file);
+        live.delayTask(id(1), 5);
+        live.delayTask(id(1), 2);
+        live.markCompleted(id(4));
+        live.addTask(task(50));
+        byte[] logged = Files.readAllBytes(wal);
+        live.saveToFile(file); // Truncates the log
+        live.closeWriteAheadLog();
+        assertTrue("replay: saving truncated the log", Files.size(wal) == 0);
+
+        Files.write(wal, logged); // As if the truncation never happened
+        TaskService reloaded = new TaskService();
+        reloaded.loadFromFile(file);
+        assertTrue("replay: log over its own snapshot changes nothing", export(reloaded).equals(export(live)));
+    }
+
+    // Changes backed up since the snapshot are restored on load; a backup older than the
+    // snapshot is ignored
+    private static void testBackupReplay() throws Exception {
+        String file = file("tasks.bin");
+        String backup = file("tasks.bin.backup");
+        TaskService live = sample();
+        live.saveToFile(file);
+        BackupDaemon daemon = new BackupDaemon(live, backup, file, 10, 10);
+        daemon.start();
+        live.addTask(task(60));
+        live.markCompleted(id(60));
+        live.markCompleted(id(6));
+        live.delayTask(id(10), 3);
+        daemon.stop();
+        assertTrue("backup: daemon stopped", daemon.awaitTermination(5, TimeUnit.SECONDS));
+        assertTrue("backup: changes written", Files.size(dir.resolve("tasks.bin.backup")) > 0);
+
+        for (boolean mapped : new boolean[] { false, true }) {
+            TaskService restored = new TaskService();
+            restored.loadFromFile(file, mapped);
+            assertTrue("backup: " + (mapped ? "mapped" : "eager") + " load restores every change",
+                    export(restored).equals(export(live)));
+            restored.loadFromFile(file, mapped);
+            assertTrue("backup: " + (mapped ? "mapped" : "eager") + " load is repeatable",
+                    export(restored).equals(export(live)));
+        }
+
+        // Saved while no daemon ran: the backup predates the snapshot and would undo the delay
+        live.delayTask(id(10), 10);
+        live.saveToFile(file);
+        FileTime saved = Files.getLastModifiedTime(dir.resolve("tasks.bin"));
+        Files.setLastModifiedTime(dir.resolve("tasks.bin.backup"), FileTime.fromMillis(saved.toMillis() - 1000));
+        TaskService reloaded = new TaskService();
+        reloaded.loadFromFile(file);
+        assertTrue("backup: a backup older than the snapshot is ignored", export(reloaded).equals(export(live)));
+    }
+
+    // True if the eager reader and the mapper both reject the file, and loading it
+    // leaves a service's tasks unchanged
+    private static boolean rejected(String file) throws Exception {
+        boolean eager = false;
+        try {
+            TaskSnapshot.read(file);
+        } catch (IOException e) {
+            eager = true;
+        }
+        boolean mapper = false;
+        try {
+            MappedTaskSnapshot.open(file).close();
+        } catch (IOException e) {
+            mapper = true;
+        }
+        TaskService service = new TaskService();
+        service.addTask(task(99));
+        String before = export(service);
+        service.loadFromFile(file);
+        boolean unchanged = export(service).equals(before);
+        service.loadFromFile(file, true);
+        unchanged &= export(service).equals(before);
+        return eager && mapper && unchanged;
+    }
+
+    // { records position, title table position, id table position } of a version 2 file
+    private static long[] footer(byte[] snapshot) {
+        ByteBuffer footer = ByteBuffer.wrap(snapshot, snapshot.length - TaskSnapshot.FOOTER_SIZE, TaskSnapshot.FOOTER_SIZE);
+        return new long[] { footer.getLong(), footer.getLong(), footer.getLong() };
+    }
+
+    // Tasks 0-19 with tasks 3, 7 and 12 completed
+    private static TaskService sample() throws InvalidTaskException {
+        TaskService service = new TaskService();
+        for (int i = 0; i < 20; i++) {
+            service.addTask(task(i));
+        }
+        for (int i : new int[] { 3, 7, 12 }) {
+            service.markCompleted(id(i));
+        }
+        return service;
+    }
+
+    // Every third task has no deadline; titles repeat, and some are not ASCII
+    private static Task task(int i) {
+        String title = i % 4 == 0 ? "Review é" : "Task " + i;
+        Priority priority = Priority.values()[i % 3];
+        return i % 3 == 0 ? new Task(id(i), title, priority) : new DeadlineTask(id(i), title, priority, deadline(i));
+    }
+
+    // IDs are spread out and include negatives, so slot and ID differ
+    private static int id(int i) {
+        return i * 11 - 30;
+    }
+
+    private static LocalDate deadline(int i) {
+        return LocalDate.ofEpochDay(20_000 + i);
+    }
+
+    // The lines sorted, for comparing tasks regardless of their order in the store
+    private static List<String> byId(String lines) {
+        List<String> sorted = new ArrayList<>(Arrays.asList(lines.split("\n")));
+        sorted.sort(null);
+        return sorted;
+    }
+
+    private static List<String> byId(List<Task> tasks) {
+        List<String> sorted = new ArrayList<>();
+        for (Task t : tasks) {
+            sorted.add(t.toString());
+        }
+        sorted.sort(null);
+        return sorted;
+    }
+
+    private static String file(String name) {
+        return dir.resolve(name).toString();
+    }
+
+    private static String export(TaskService service) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.exportTasks(out, TaskImporter.Format.CSV);
+        return out.toString("UTF-8");
+    }
+
+    private static void assertTrue(String testName, boolean condition) {
+        if (condition) {
+            pass(testName);
+        } else {
+            fail(testName);
+        }
+    }
+
+    private static void pass(String testName) {
+        System.out.println("✓ PASS: " + testName);
+        testsPassed++;
+    }
+
+    private static void fail(String testName) {
+        System.out.println("✗ FAIL: " + testName);
+        testsFailed++;
+    }
+
+    private static void printResults() {
+        System.out.println("===== TEST RESULTS =====");
+        System.out.println("Passed: " + testsPassed);
+        System.out.println("Failed: " + testsFailed);
+        System.out.println("Total:  " + (testsPassed + testsFailed));
+        System.out.println("Status: " + (testsFailed == 0 ? "ALL TESTS PASSED ✓" : "SOME TESTS FAILED ✗"));
+    }
+}
@@ -1,13 +0,0 @@
-import java.util.*;
-
-public class Repository<T> {
-    private List<T> items = new ArrayList<>();
-
-    public void add(T item) {
-        items.add(item);
-    }
-
-    public List<T> getAll() {
-        return items;
-    }
-}
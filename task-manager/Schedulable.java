@@ -1,4 +1,14 @@
+import java.time.LocalDate;
+
 public interface Schedulable {
-    boolean isOverdue();
+    LocalDate getDeadline();
+
+    // Overdue relative to a caller-supplied "today", so bulk checks read the clock once
+    boolean isOverdue(long asOfEpochDay);
+
+    default boolean isOverdue() {
+        return isOverdue(LocalDate.now().toEpochDay());
+    }
+
     void delay(int days);
 }
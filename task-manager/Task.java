@@ -1,4 +1,5 @@
 import java.io.Serializable;
+import java.time.LocalDate;
 
 public class Task implements Serializable {
     private static final long serialVersionUID = 1L;
@@ -17,6 +18,7 @@ public class Task implements Serializable {
         private int id;
         private String title;
         private Priority priority;
+        private LocalDate deadline;
 
         public TaskBuilder setId(int id) {
             this.id = id;
@@ -33,7 +35,16 @@ public class Task implements Serializable {
             return this;
         }
 
+        // With a deadline, build() returns a DeadlineTask
+        public TaskBuilder setDeadline(LocalDate deadline) {
+            this.deadline = deadline;
+            return this;
+        }
+
         public Task build() {
+            if (this.deadline != null) {
+                return new DeadlineTask(this.id, this.title, this.priority, this.deadline);
+            }
             return new Task(this.id, this.title, this.priority);
         }
     }
@@ -50,8 +61,15 @@ public class Task implements Serializable {
         return priority;
     }
 
+    // Appends the same text as toString() without building intermediate strings.
+    // asOfEpochDay is "today" for subclasses whose text depends on the date.
+    // Fields are read through the getters so storage views can override them.
+    public void appendTo(StringBuilder sb, long asOfEpochDay) {
+        sb.append(getId()).append(' ').append(getTitle()).append(' ').append(getPriority());
+    }
+
     @Override
     public String toString() {
-        return id + " " + title + " " + priority;
+        return getId() + " " + getTitle() + " " + getPriority();
     }
 }
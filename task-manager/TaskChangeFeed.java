@@ -0,0 +1,328 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Ordered change feed (change data capture) of a TaskService: every add, completion,
+// delay and reload becomes an Event with the next sequence number, starting at 1.
+//
+//   TaskChangeFeed.Subscription changes = service.subscribeToChanges();
+//   TaskChangeFeed.Event event = changes.take(); // Blocks until the next change
+//   ...
+//   changes = service.subscribeToChanges(lastSeenSequence + 1); // Resume
+//
+// Events live in a bounded ring buffer and nothing takes a lock. A producer claims a
+// sequence with an atomic increment and stores its event in the sequence's slot with
+// a release write, which is what makes it visible. Each Subscription reads at its own
+// position, so subscribers are independent of each other. A producer does not overwrite
+// an event an open subscription has not read yet; it waits for the slowest subscriber
+// instead (backpressure), so no event is lost. Close subscriptions that are no longer
+// read: by default the wait has no limit, and an abandoned subscription stalls writers
+// for good. Eviction is opt-in: with a maxStall set, a subscription that holds a producer
+// back for longer is evicted. It is closed, producers go on, and its next read throws,
+// so the consumer can tell it missed events (and re-read the service). A new
+// subscription can start from any sequence still in the ring (the last capacity events).
+//
+// ADDED events carry a copy of the task only if a subscription was open when the
+// change was made, so a service nobody subscribes to copies nothing. An ADDED event
+// read after resuming across such a gap has no task; look it up by ID.
+public class TaskChangeFeed {
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(Event[].class);
+    private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final long NO_LIMIT = Long.MAX_VALUE;
+
+    public enum Type {
+        ADDED, COMPLETED, DELAYED, RELOADED
+    }
+
+    private final Event[] slots;
+    private final int mask;
+    private final AtomicLong cursor = new AtomicLong(); // Highest sequence claimed
+    private final CopyOnWriteArrayList<Subscription> subscribers = new CopyOnWriteArrayList<>();
+    private volatile long maxStallNanos = NO_LIMIT;
+
+    // capacity is rounded up to a power of two; producers wait for subscribers without a limit
+    public TaskChangeFeed(int capacity) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("capacity must be between 1 and 2^30");
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        slots = new Event[size];
+        mask = size - 1;
+    }
+
+    public int capacity() {
+        return slots.length;
+    }
+
+    // Opts in to eviction: a subscription that keeps a producer waiting for longer than
+    // maxStall is evicted instead. Long.MAX_VALUE nanoseconds (the default) waits forever.
+    public void setMaxStall(long maxStall, TimeUnit unit) {
+        if (maxStall < 0) {
+            throw new IllegalArgumentException("maxStall must be >= 0");
+        }
+        maxStallNanos = unit.toNanos(maxStall);
+    }
+
+    // Highest sequence handed out so far, 0 before the first change; its event may still be in flight
+    public long latestSequence() {
+        return cursor.get();
+    }
+
+    // Event factories: each claims the next sequence. TaskService calls them while it
+    // holds its lock, so sequences follow the order the changes were applied in, and
+    // publishes the event after releasing the lock.
+    // The task is copied out of the store only if someone may read it. The check comes
+    // after the claim: a subscription registered later starts past this sequence.
+    Event added(TaskStore store, int slot) {
+        long sequence = cursor.incrementAndGet();
+        Task task = subscribers.isEmpty() ? null : store.detach(slot);
+        return new Event(sequence, Type.ADDED, store.getId(slot), task, 0, null);
+    }
+
+    Event completed(int taskId) {
+        return new Event(cursor.incrementAndGet(), Type.COMPLETED, taskId, null, 0, null);
+    }
+
+    Event delayed(int taskId, int days, LocalDate deadline) {
+        return new Event(cursor.incrementAndGet(), Type.DELAYED, taskId, null, days, deadline);
+    }
+
+    Event reloaded() {
+        return new Event(cursor.incrementAndGet(), Type.RELOADED, -1, null, 0, null);
+    }
+
+    // Makes a claimed event visible, first waiting until every open subscription has
+    // read the event it replaces, or evicting those that have not after maxStall (if set).
+    // Every claimed event must be published, or subscribers stop at its sequence.
+    void publish(Event event) {
+        long wrapped = event.sequence - slots.length; // The event whose slot this one takes
+        long start = 0;
+        for (int attempt = 0; wrapped >= slowestPosition(); attempt++) {
+            long maxStall = maxStallNanos;
+            if (attempt == 0) {
+                start = System.nanoTime();
+            } else if (maxStall != NO_LIMIT && System.nanoTime() - start >= maxStall) {
+                evictBehind(wrapped);
+                break;
+            }
+            backOff(attempt);
+        }
+        SLOTS.setRelease(slots, (int) event.sequence & mask, event);
+    }
+
+    // Evicts every subscription that has not read past sequence yet
+    private void evictBehind(long sequence) {
+        for (Subscription s : subscribers) {
+            if (s.position <= sequence) {
+                s.evicted = true;
+                subscribers.remove(s);
+            }
+        }
+    }
+
+    // Lowest position of the open subscriptions, or Long.MAX_VALUE if there are none
+    private long slowestPosition() {
+        long min = Long.MAX_VALUE;
+        for (Subscription s : subscribers) {
+            min = Math.min(min, s.position);
+        }
+        return min;
+    }
+
+    // Subscribes from the next change. The subscription is registered before its start is
+    // read, so every event from that start on was claimed while it was open (see added()).
+    public Subscription subscribe() {
+        Subscription subscription = new Subscription(Long.MAX_VALUE); // Holds nobody back yet
+        subscribers.add(subscription);
+        subscription.position = cursor.get() + 1; // Not claimed yet, so not overwritten either
+        return subscription;
+    }
+
+    // Subscribes from fromSequence, e.g. one past the last event a consumer processed.
+    // Throws IllegalArgumentException if that event has already been overwritten.
+    public Subscription subscribe(long fromSequence) {
+        Subscription subscription = new Subscription(fromSequence);
+        subscribers.add(subscription);
+        // Producers that claim after this read see the subscription and will not
+        // overwrite its events; earlier claims only overwrite events before oldest
+        long claimed = cursor.get();
+        long oldest = Math.max(1, claimed - slots.length + 1);
+        if (fromSequence < oldest || fromSequence > claimed + 1) {
+            subscribers.remove(subscription);
+            throw new IllegalArgumentException("Sequence " + fromSequence + " is not in the feed (available: "
+                    + oldest + " to " + (claimed + 1) + ")");
+        }
+        return subscription;
+    }
+
+    private static void backOff(int attempt) {
+        if (attempt < 100) {
+            Thread.onSpinWait();
+        } else if (attempt < 200) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(PARK_NANOS);
+        }
+    }
+
+    // A reader of the feed. Each subscription is meant for one consumer thread at a time.
+    public final class Subscription implements AutoCloseable {
+        private volatile long position; // Next sequence to read
+        private volatile boolean closed;
+        private volatile boolean evicted;
+
+        Subscription(long position) {
+            this.position = position;
+        }
+
+        // Sequence of the next event this subscription returns
+        public long getPosition() {
+            return position;
+        }
+
+        // Events published but not read yet (ignoring events still in flight)
+        public long lag() {
+            return Math.max(0, cursor.get() + 1 - position);
+        }
+
+        // True once a producer gave up waiting for this subscription; the events from
+        // getPosition() on are being overwritten
+        public boolean isEvicted() {
+            return evicted;
+        }
+
+        // The next event, or null if it has not been published yet
+        public Event poll() {
+            if (evicted) {
+                throw new IllegalStateException("Subscription was evicted at event " + position
+                        + ": it held back writers for longer than the feed's maxStall");
+            }
+            if (closed) {
+                throw new IllegalStateException("Subscription is closed");
+            }
+            long sequence = position;
+            Event event = (Event) SLOTS.getAcquire(slots, (int) sequence & mask);
+            if (event == null || event.sequence < sequence) {
+                return null;
+            }
+            if (event.sequence > sequence) {
+                throw new IllegalStateException("Event " + sequence + " was overwritten");
+            }
+            position = sequence + 1; // Frees the slot for producers
+            return event;
+        }
+
+        // Waits up to the timeout for the next event; null if none arrived
+        public Event poll(long timeout, TimeUnit unit) throws InterruptedException {
+            long deadline = System.nanoTime() + unit.toNanos(timeout);
+            Event event;
+            for (int attempt = 0; (event = poll()) == null; attempt++) {
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+                if (System.nanoTime() - deadline >= 0) {
+                    return null;
+                }
+                backOff(attempt);
+            }
+            return event;
+        }
+
+        // Waits for the next event
+        public Event take() throws InterruptedException {
+            Event event;
+            for (int attempt = 0; (event = poll()) == null; attempt++) {
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+                backOff(attempt);
+            }
+            return event;
+        }
+
+        // Moves up to max published events into the collection without waiting; returns how many
+        public int drainTo(Collection<? super Event> into, int max) {
+            int drained = 0;
+            Event event;
+            while (drained < max && (event = poll()) != null) {
+                into.add(event);
+                drained++;
+            }
+            return drained;
+        }
+
+        // Stops holding producers back; resume later with subscribe(getPosition())
+        @Override
+        public void close() {
+            closed = true;
+            subscribers.remove(this);
+        }
+    }
+
+    // One change. ADDED carries the task (with HeapTaskStore, the stored object itself, which
+    // later changes show through) if a subscription was open, DELAYED the days and the new deadline.
+    public static final class Event {
+        private final long sequence;
+        private final Type type;
+        private final int taskId;
+        private final Task task;
+        private final int days;
+        private final LocalDate deadline;
+
+        Event(long sequence, Type type, int taskId, Task task, int days, LocalDate deadline) {
+            this.sequence = sequence;
+            this.type = type;
+            this.taskId = taskId;
+            this.task = task;
+            this.days = days;
+            this.deadline = deadline;
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+
+        public Type getType() {
+            return type;
+        }
+
+        // -1 for RELOADED, which replaces every task: re-read the service
+        public int getTaskId() {
+            return taskId;
+        }
+
+        // The added task for ADDED, otherwise null. Also null for an ADDED event made while
+        // no subscription was open, read after resuming with subscribe(fromSequence).
+        public Task getTask() {
+            return task;
+        }
+
+        // Days the deadline moved by for DELAYED, otherwise 0
+        public int getDays() {
+            return days;
+        }
+
+        // The new deadline for DELAYED, otherwise null
+        public LocalDate getDeadline() {
+            return deadline;
+        }
+
+        @Override
+        public String toString() {
+            switch (type) {
+                case ADDED: return "#" + sequence + " ADDED " + (task != null ? task : "task " + taskId);
+                case DELAYED: return "#" + sequence + " DELAYED " + taskId + " by " + days + " days to " + deadline;
+                case COMPLETED: return "#" + sequence + " COMPLETED " + taskId;
+                default: return "#" + sequence + " " + type;
+            }
+        }
+    }
+}
@@ -0,0 +1,231 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+// Encodes task rows as CSV or NDJSON, in the formats TaskImporter reads back:
+//
+//   id,title,priority,deadline,completed           {"id":1,"title":"Learn Java","priority":"HIGH","completed":true}
+//   1,Learn Java,HIGH,,true                        {"id":3,"title":"Submit","priority":"HIGH","deadline":"2026-10-19","completed":false}
+//
+// TaskService.exportTasks() drives it. Each row is encoded straight from the store's
+// primitive accessors into one reused byte buffer: no Task, String or array is created
+// per row. The service writes the buffer to the stream once a chunk has accumulated,
+// outside its lock. Titles come out as UTF-8; CSV quotes a title holding a comma,
+// quote or line break, NDJSON escapes quotes, backslashes and control characters.
+class TaskExporter {
+    private static final byte[] CSV_HEADER = "id,title,priority,deadline,completed\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[][] PRIORITY_NAMES = new byte[Priority.values().length][];
+    private static final int MAX_ROW_BYTES = 128; // A row without its title, escapes included
+
+    static {
+        for (Priority p : Priority.values()) {
+            PRIORITY_NAMES[p.ordinal()] = p.name().getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    private final TaskImporter.Format format;
+    private byte[] buffer;
+    private int length;
+    private byte[] title = new byte[256]; // The current row's raw UTF-8 title
+
+    TaskExporter(TaskImporter.Format format, int chunkBytes) {
+        this.format = format;
+        this.buffer = new byte[chunkBytes + MAX_ROW_BYTES];
+    }
+
+    // Bytes encoded and not written out yet
+    int size() {
+        return length;
+    }
+
+    // The CSV header line; NDJSON has none
+    void writeHeader() {
+        if (format == TaskImporter.Format.CSV) {
+            append(CSV_HEADER);
+        }
+    }
+
+    void writeRow(TaskStore store, int slot, boolean completed) {
+        int titleLength = store.getTitleUtf8(slot, title, 0);
+        if (titleLength > title.length) {
+            title = new byte[Math.max(titleLength, title.length * 2)];
+            store.getTitleUtf8(slot, title, 0);
+        }
+        // Every title byte may become a six-byte JSON escape, plus quotes around it
+        ensureCapacity(MAX_ROW_BYTES + 6 * Math.max(titleLength, 0));
+        Priority priority = store.getPriority(slot);
+        long deadline = store.getDeadlineDay(slot);
+        if (format == TaskImporter.Format.CSV) {
+            writeInt(store.getId(slot));
+            buffer[length++] = ',';
+            writeCsvTitle(titleLength);
+            buffer[length++] = ',';
+            if (priority != null) {
+                append(PRIORITY_NAMES[priority.ordinal()]);
+            }
+            buffer[length++] = ',';
+            if (deadline != TaskStore.NO_DEADLINE) {
+                writeDate(deadline);
+            }
+            buffer[length++] = ',';
+            writeBoolean(completed);
+        } else {
+            writeAscii("{\"id\":");
+            writeInt(store.getId(slot));
+            writeAscii(",\"title\":");
+            writeJsonTitle(titleLength);
+            writeAscii(",\"priority\":");
+            if (priority != null) {
+                buffer[length++] = '"';
+                append(PRIORITY_NAMES[priority.ordinal()]);
+                buffer[length++] = '"';
+            } else {
+                writeAscii("null");
+            }
+            if (deadline != TaskStore.NO_DEADLINE) {
+                writeAscii(",\"deadline\":\"");
+                writeDate(deadline);
+                buffer[length++] = '"';
+            }
+            writeAscii(",\"completed\":");
+            writeBoolean(completed);
+            buffer[length++] = '}';
+        }
+        buffer[length++] = '\n';
+    }
+
+    // Writes the encoded bytes to out and empties the buffer
+    void drainTo(OutputStream out) throws IOException {
+        out.write(buffer, 0, length);
+        length = 0;
+    }
+
+    private void writeCsvTitle(int titleLength) {
+        if (titleLength <= 0) {
+            return; // A null title exports as an empty field
+        }
+        boolean quote = false;
+        for (int i = 0; i < titleLength && !quote; i++) {
+            byte b = title[i];
+            quote = b == ',' || b == '"' || b == '\n' || b == '\r';
+        }
+        if (!quote) {
+            System.arraycopy(title, 0, buffer, length, titleLength);
+            length += titleLength;
+            return;
+        }
+        buffer[length++] = '"';
+        for (int i = 0; i < titleLength; i++) {
+            if (title[i] == '"') {
+                buffer[length++] = '"';
+            }
+            buffer[length++] = title[i];
+        }
+        buffer[length++] = '"';
+    }
+
+    private void writeJsonTitle(int titleLength) {
+        if (titleLength < 0) {
+            writeAscii("null");
+            return;
+        }
+        buffer[length++] = '"';
+        for (int i = 0; i < titleLength; i++) {
+            byte b = title[i];
+            if (b == '"' || b == '\\') {
+                buffer[length++] = '\\';
+                buffer[length++] = b;
+            } else if (b >= 0 && b < 0x20) {
+                switch (b) {
+                    case '\n': writeAscii("\\n"); break;
+                    case '\r': writeAscii("\\r"); break;
+                    case '\t': writeAscii("\\t"); break;
+                    default:
+                        writeAscii("\\u00");
+                        buffer[length++] = HEX[b >> 4];
+                        buffer[length++] = HEX[b & 0xF];
+                }
+            } else {
+                buffer[length++] = b; // ASCII, or part of a multi-byte character
+            }
+        }
+        buffer[length++] = '"';
+    }
+
+    private void writeInt(int value) {
+        if (value < 0) {
+            if (value == Integer.MIN_VALUE) {
+                writeAscii("-2147483648");
+                return;
+            }
+            buffer[length++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (int v = value; v >= 10; v /= 10) {
+            digits++;
+        }
+        for (int i = length + digits - 1; i >= length; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        length += digits;
+    }
+
+    // yyyy-MM-dd from an epoch day, without creating a LocalDate
+    private void writeDate(long epochDay) {
+        // Days since 0000-03-01, so the leap day ends each 4/100/400-year cycle
+        long days = epochDay + 719_468;
+        long era = Math.floorDiv(days, 146_097);
+        long dayOfEra = days - era * 146_097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36_524 - dayOfEra / 146_096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long shiftedMonth = (5 * dayOfYear + 2) / 153; // 0 = March
+        int day = (int) (dayOfYear - (153 * shiftedMonth + 2) / 5 + 1);
+        int month = (int) (shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9);
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        if (year < 0 || year > 9999) {
+            writeAscii(LocalDate.ofEpochDay(epochDay).toString()); // Rare; TaskImporter rejects it anyway
+            return;
+        }
+        writeDigits((int) year, 4);
+        buffer[length++] = '-';
+        writeDigits(month, 2);
+        buffer[length++] = '-';
+        writeDigits(day, 2);
+    }
+
+    private void writeDigits(int value, int count) {
+        for (int i = length + count - 1; i >= length; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        length += count;
+    }
+
+    private void writeBoolean(boolean value) {
+        writeAscii(value ? "true" : "false");
+    }
+
+    // Only for the short ASCII literals above
+    private void writeAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            buffer[length++] = (byte) text.charAt(i);
+        }
+    }
+
+    private void append(byte[] bytes) {
+        System.arraycopy(bytes, 0, buffer, length, bytes.length);
+        length += bytes.length;
+    }
+
+    private void ensureCapacity(int rowBytes) {
+        if (buffer.length - length < rowBytes) {
+            byte[] bigger = new byte[Math.max(buffer.length * 2, length + rowBytes)];
+            System.arraycopy(buffer, 0, bigger, 0, length);
+            buffer = bigger;
+        }
+    }
+}
@@ -0,0 +1,764 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Bulk loader for large task files, in CSV or NDJSON (one JSON object per line):
+//
+//   id,title,priority,deadline,completed           {"id":1,"title":"Learn Java","priority":"HIGH"}
+//   1,Learn Java,HIGH,,false                       {"id":3,"title":"Submit","priority":"HIGH","deadline":"2026-10-19"}
+//
+//   TaskImporter.Result result = new TaskImporter(service).importFile(Paths.get("tasks.csv"));
+//
+// The calling thread reads the file through a FileChannel in large chunks, each cut
+// after its last complete row, and hands them to a pool of parser threads. Parsed
+// batches come back in file order and each is committed with one addTasks() call: one
+// lock acquisition and one backup daemon wake-up per chunk instead of per task. At most
+// two chunks per parser are in flight and their buffers are reused, so memory stays flat
+// however large the file is.
+// A CSV header names the columns (any order; deadline and completed are optional);
+// without one the order above is assumed. Rows that do not parse, and rows whose ID is
+// already taken, are rejected and counted; the first few reasons are kept in the Result.
+public class TaskImporter {
+    public enum Format {
+        CSV, NDJSON;
+
+        // By file extension: .ndjson, .jsonl and .json are NDJSON, anything else CSV
+        public static Format of(Path file) {
+            String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+            return name.endsWith(".ndjson") || name.endsWith(".jsonl") || name.endsWith(".json") ? NDJSON : CSV;
+        }
+    }
+
+    private static final int DEFAULT_CHUNK_BYTES = 4 << 20;
+    private static final int MAX_ERRORS = 10;
+    private static final String[] COLUMNS = { "id", "title", "priority", "deadline", "completed" };
+    private static final byte[][] PRIORITY_NAMES = new byte[Priority.values().length][];
+
+    static {
+        for (Priority p : Priority.values()) {
+            PRIORITY_NAMES[p.ordinal()] = p.name().getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    private final TaskService service;
+    private final int threads;
+    private final int chunkBytes;
+
+    public TaskImporter(TaskService service) {
+        this(service, Runtime.getRuntime().availableProcessors(), DEFAULT_CHUNK_BYTES);
+    }
+
+    public TaskImporter(TaskService service, int threads, int chunkBytes) {
+        if (threads < 1 || chunkBytes < 1024) {
+            throw new IllegalArgumentException("threads must be >= 1 and chunkBytes >= 1024");
+        }
+        this.service = service;
+        this.threads = threads;
+        this.chunkBytes = chunkBytes;
+    }
+
+    public Result importFile(Path file) throws IOException {
+        return importFile(file, Format.of(file));
+    }
+
+    public Result importFile(Path file, Format format) throws IOException {
+        long start = System.nanoTime();
+        Result result = new Result();
+        ExecutorService parsers = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "TaskImporter-parser");
+            t.setDaemon(true);
+            return t;
+        });
+        BlockingQueue<byte[]> buffers = new ArrayBlockingQueue<>(2 * threads + 1);
+        ArrayDeque<Future<Batch>> inFlight = new ArrayDeque<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            byte[] buffer = new byte[chunkBytes];
+            int filled = 0;
+            int[] columns = null;
+            boolean eof = false;
+            boolean started = false;
+            while (!eof) {
+                int read = channel.read(ByteBuffer.wrap(buffer, filled, buffer.length - filled));
+                eof = read < 0;
+                filled += Math.max(read, 0);
+                if (!started) {
+                    if (filled < 3 && !eof) {
+                        continue;
+                    }
+                    started = true;
+                    if (filled >= 3 && buffer[0] == (byte) 0xEF && buffer[1] == (byte) 0xBB && buffer[2] == (byte) 0xBF) {
+                        filled = shift(buffer, 3, filled); // UTF-8 byte order mark
+                    }
+                }
+                if (columns == null && format == Format.CSV) {
+                    int headerEnd = csvHeaderEnd(buffer, filled, eof);
+                    if (headerEnd < 0) {
+                        if (filled == buffer.length) {
+                            buffer = grow(buffer, filled); // The first line does not fit yet
+                        }
+                        continue;
+                    }
+                    columns = csvColumns(buffer, headerEnd);
+                    if (columns != null) {
+                        filled = shift(buffer, headerEnd, filled);
+                    } else {
+                        columns = new int[] { 0, 1, 2, 3, 4 };
+                    }
+                }
+                int cut = eof ? filled : lastRowEnd(buffer, filled, format);
+                if (cut <= 0 && !eof) {
+                    if (filled == buffer.length) {
+                        buffer = grow(buffer, filled); // A single row longer than the chunk
+                    }
+                    continue;
+                }
+                if (cut > 0) {
+                    byte[] next = buffers.poll();
+                    if (next == null || next.length < buffer.length) {
+                        next = new byte[buffer.length];
+                    }
+                    System.arraycopy(buffer, cut, next, 0, filled - cut);
+                    Chunk chunk = new Chunk(buffer, cut, format, columns);
+                    inFlight.add(parsers.submit(() -> {
+                        try {
+                            return chunk.parse();
+                        } finally {
+                            buffers.offer(chunk.data);
+                        }
+                    }));
+                    filled -= cut;
+                    buffer = next;
+                }
+                while (inFlight.size() >= 2 * threads || (eof && !inFlight.isEmpty())) {
+                    commit(await(inFlight.poll()), result);
+                }
+            }
+        } finally {
+            parsers.shutdownNow();
+        }
+        result.elapsedNanos = System.nanoTime() - start;
+        return result;
+    }
+
+    private static Batch await(Future<Batch> parsed) throws IOException {
+        try {
+            return parsed.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Import interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Parsing failed", e.getCause());
+        }
+    }
+
+    // One addTasks() call for the batch; rows whose ID is taken, or repeats an earlier
+    // row, are left out under the same lock and rejected
+    private void commit(Batch batch, Result result) {
+        long firstRow = result.lines + 1; // Chunks number their rows from 1; this makes it file-wide
+        result.lines += batch.lines;
+        result.rows += batch.rows;
+        result.rejected += batch.rejected - batch.errors.size();
+        for (int i = 0; i < batch.errors.size(); i++) {
+            result.reject("row " + (firstRow + batch.errorRows[i] - 1) + ": " + batch.errors.get(i));
+        }
+        BitSet skipped = service.addTasksSkippingTaken(batch.tasks, batch.completed);
+        result.imported += batch.tasks.size() - skipped.cardinality();
+        for (int i = skipped.nextSetBit(0); i >= 0; i = skipped.nextSetBit(i + 1)) {
+            result.reject("row " + (firstRow + batch.rowNumbers[i] - 1) + ": Task ID "
+                    + batch.tasks.get(i).getId() + " already exists");
+        }
+    }
+
+    private static byte[] grow(byte[] buffer, int filled) {
+        byte[] bigger = new byte[buffer.length * 2];
+        System.arraycopy(buffer, 0, bigger, 0, filled);
+        return bigger;
+    }
+
+    private static int shift(byte[] buffer, int from, int filled) {
+        System.arraycopy(buffer, from, buffer, 0, filled - from);
+        return filled - from;
+    }
+
+    // End of the first line (past its newline), or -1 if it is not complete yet
+    private static int csvHeaderEnd(byte[] b, int filled, boolean eof) {
+        for (int i = 0; i < filled; i++) {
+            if (b[i] == '\n') {
+                return i + 1;
+            }
+        }
+        return eof ? filled : -1;
+    }
+
+    // Column of each of COLUMNS (-1 if absent) from a header line, or null if the first
+    // line is data (starts with a digit)
+    private static int[] csvColumns(byte[] b, int end) {
+        if (end > 0 && (b[0] == '-' || (b[0] >= '0' && b[0] <= '9'))) {
+            return null;
+        }
+        String[] names = new String(b, 0, end, StandardCharsets.UTF_8).trim().split(",", -1);
+        int[] columns = { -1, -1, -1, -1, -1 };
+        for (int i = 0; i < names.length; i++) {
+            String name = names[i].trim().replace("\"", "").toLowerCase(Locale.ROOT);
+            for (int c = 0; c < COLUMNS.length; c++) {
+                if (COLUMNS[c].equals(name)) {
+                    columns[c] = i;
+                }
+            }
+        }
+        if (columns[0] < 0 || columns[1] < 0 || columns[2] < 0) {
+            throw new IllegalArgumentException("CSV header needs id, title and priority columns: " + String.join(",", names));
+        }
+        return columns;
+    }
+
+    // Position just past the last newline that ends a row, or 0 if there is none.
+    // In CSV a newline inside a quoted title does not end the row.
+    private static int lastRowEnd(byte[] b, int filled, Format format) {
+        if (format == Format.NDJSON) {
+            for (int i = filled - 1; i >= 0; i--) {
+                if (b[i] == '\n') {
+                    return i + 1;
+                }
+            }
+            return 0;
+        }
+        boolean quoted = false;
+        int end = 0;
+        for (int i = 0; i < filled; i++) {
+            byte c = b[i];
+            if (c == '"') {
+                quoted = !quoted; // An escaped "" flips twice
+            } else if (c == '\n' && !quoted) {
+                end = i + 1;
+            }
+        }
+        return end;
+    }
+
+    // Rows of the file cut at row boundaries, parsed on a parser thread
+    private static final class Chunk {
+        final byte[] data;
+        final int length;
+        final Format format;
+        private final int[] fieldOfColumn; // CSV column index -> index in COLUMNS, or -1
+
+        // Per-row parse state
+        private final int[] fieldStart = new int[COLUMNS.length];
+        private final int[] fieldEnd = new int[COLUMNS.length];
+        private final boolean[] fieldQuoted = new boolean[COLUMNS.length];
+        private byte[] scratch = new byte[256];
+        private int pos; // JSON parse position within the row
+
+        Chunk(byte[] data, int length, Format format, int[] columns) {
+            this.data = data;
+            this.length = length;
+            this.format = format;
+            int width = 0;
+            for (int column : columns == null ? new int[0] : columns) {
+                width = Math.max(width, column + 1);
+            }
+            fieldOfColumn = new int[width];
+            Arrays.fill(fieldOfColumn, -1);
+            for (int f = 0; columns != null && f < columns.length; f++) {
+                if (columns[f] >= 0) {
+                    fieldOfColumn[columns[f]] = f;
+                }
+            }
+        }
+
+        Batch parse() {
+            Batch batch = new Batch();
+            long row = 1;
+            int rowEnd = 0;
+            while (rowEnd < length) {
+                int rowStart = rowEnd;
+                rowEnd = format == Format.CSV ? csvRowEnd(rowStart) : jsonRowEnd(rowStart);
+                int contentEnd = rowEnd;
+                while (contentEnd > rowStart && (data[contentEnd - 1] == '\n' || data[contentEnd - 1] == '\r')) {
+                    contentEnd--;
+                }
+                batch.lines++;
+                if (contentEnd == rowStart) {
+                    row++;
+                    continue; // Blank line
+                }
+                try {
+                    if (format == Format.CSV) {
+                        parseCsvRow(rowStart, contentEnd, row, batch);
+                    } else {
+                        parseJsonRow(rowStart, contentEnd, row, batch);
+                    }
+                } catch (IllegalArgumentException | DateTimeException e) {
+                    batch.reject(row, e.getMessage());
+                }
+                batch.rows++;
+                row++;
+            }
+            return batch;
+        }
+
+        private int csvRowEnd(int from) {
+            boolean quoted = false;
+            for (int i = from; i < length; i++) {
+                if (data[i] == '"') {
+                    quoted = !quoted;
+                } else if (data[i] == '\n' && !quoted) {
+                    return i + 1;
+                }
+            }
+            return length;
+        }
+
+        private int jsonRowEnd(int from) {
+            for (int i = from; i < length; i++) {
+                if (data[i] == '\n') {
+                    return i + 1;
+                }
+            }
+            return length;
+        }
+
+        private void parseCsvRow(int start, int end, long row, Batch batch) {
+            Arrays.fill(fieldStart, -1);
+            int column = 0;
+            int i = start;
+            while (true) {
+                int field = column < fieldOfColumn.length ? fieldOfColumn[column] : -1;
+                boolean quoted = i < end && data[i] == '"';
+                int fieldBegin = quoted ? i + 1 : i;
+                if (quoted) {
+                    i++;
+                    while (i < end && !(data[i] == '"' && (i + 1 >= end || data[i + 1] != '"'))) {
+                        i += data[i] == '"' ? 2 : 1; // "" is an escaped quote
+                    }
+                    if (i >= end) {
+                        throw new IllegalArgumentException("unterminated quoted field");
+                    }
+                }
+                if (quoted) {
+                    i++; // Closing quote
+                }
+                int quoteEnd = i - 1;
+                while (i < end && data[i] != ',') {
+                    i++;
+                }
+                int fieldStop = quoted ? quoteEnd : i;
+                if (field >= 0) {
+                    fieldStart[field] = fieldBegin;
+                    fieldEnd[field] = fieldStop;
+                    fieldQuoted[field] = quoted;
+                }
+                if (i >= end) {
+                    break;
+                }
+                i++; // Comma
+                column++;
+            }
+            if (fieldStart[0] < 0 || fieldStart[1] < 0 || fieldStart[2] < 0) {
+                throw new IllegalArgumentException("expected id, title and priority");
+            }
+            int id = parseId(fieldStart[0], fieldEnd[0]);
+            String title = fieldQuoted[1] ? unquote(fieldStart[1], fieldEnd[1])
+                    : new String(data, fieldStart[1], fieldEnd[1] - fieldStart[1], StandardCharsets.UTF_8);
+            Priority priority = parsePriority(fieldStart[2], fieldEnd[2]);
+            LocalDate deadline = fieldStart[3] >= 0 ? parseDate(fieldStart[3], fieldEnd[3]) : null;
+            boolean completed = fieldStart[4] >= 0 && parseBoolean(fieldStart[4], fieldEnd[4]);
+            batch.add(build(id, title, priority, deadline), completed, row);
+        }
+
+
+        // Quoted CSV field with "" unescaped
+        private String unquote(int start, int end) {
+            int n = 0;
+            ensureScratch(end - start);
+            for (int i = start; i < end; i++) {
+                scratch[n++] = data[i];
+                if (data[i] == '"') {
+                    i++;
+                }
+            }
+            return new String(scratch, 0, n, StandardCharsets.UTF_8);
+        }
+
+        // A flat JSON object; fields may come in any order, unknown ones are skipped
+        private void parseJsonRow(int start, int end, long row, Batch batch) {
+            pos = skipSpace(start, end);
+            expect(end, '{');
+            Integer id = null;
+            String title = null;
+            Priority priority = null;
+            LocalDate deadline = null;
+            boolean completed = false;
+            boolean titleSet = false;
+            pos = skipSpace(pos, end);
+            if (pos < end && data[pos] == '}') {
+                pos++;
+            } else {
+                while (true) {
+                    pos = skipSpace(pos, end);
+                    expect(end, '"');
+                    int keyStart = pos;
+                    while (pos < end && data[pos] != '"') {
+                        pos += data[pos] == '\\' ? 2 : 1;
+                    }
+                    int keyEnd = pos;
+                    expect(end, '"');
+                    pos = skipSpace(pos, end);
+                    expect(end, ':');
+                    pos = skipSpace(pos, end);
+                    if (isKey(keyStart, keyEnd, "id")) {
+                        int numberStart = pos;
+                        while (pos < end && data[pos] != ',' && data[pos] != '}' && data[pos] != ' ') {
+                            pos++;
+                        }
+                        id = parseId(numberStart, pos);
+                    } else if (isKey(keyStart, keyEnd, "title")) {
+                        title = isNull(end) ? null : jsonString(end);
+                        titleSet = true;
+                    } else if (isKey(keyStart, keyEnd, "priority")) {
+                        priority = isNull(end) ? null : parsePriority(jsonString(end));
+                    } else if (isKey(keyStart, keyEnd, "deadline")) {
+                        deadline = isNull(end) ? null : LocalDate.parse(jsonString(end));
+                    } else if (isKey(keyStart, keyEnd, "completed")) {
+                        completed = jsonBoolean(end);
+                    } else {
+                        skipValue(end);
+                    }
+                    pos = skipSpace(pos, end);
+                    if (pos < end && data[pos] == ',') {
+                        pos++;
+                        continue;
+                    }
+                    expect(end, '}');
+                    break;
+                }
+            }
+            if (id == null || !titleSet || priority == null) {
+                throw new IllegalArgumentException("expected id, title and priority");
+            }
+            batch.add(build(id, title, priority, deadline), completed, row);
+        }
+
+        private boolean isKey(int start, int end, String name) {
+            if (end - start != name.length()) {
+                return false;
+            }
+            for (int i = 0; i < name.length(); i++) {
+                if (data[start + i] != name.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean isNull(int end) {
+            if (end - pos >= 4 && data[pos] == 'n' && data[pos + 1] == 'u' && data[pos + 2] == 'l' && data[pos + 3] == 'l') {
+                pos += 4;
+                return true;
+            }
+            return false;
+        }
+
+        private boolean jsonBoolean(int end) {
+            if (end - pos >= 4 && data[pos] == 't' && data[pos + 1] == 'r' && data[pos + 2] == 'u' && data[pos + 3] == 'e') {
+                pos += 4;
+                return true;
+            }
+            if (end - pos >= 5 && data[pos] == 'f' && data[pos + 1] == 'a' && data[pos + 2] == 'l'
+                    && data[pos + 3] == 's' && data[pos + 4] == 'e') {
+                pos += 5;
+                return false;
+            }
+            throw new IllegalArgumentException("expected true or false at column " + pos);
+        }
+
+        // A JSON string at pos; pos moves past its closing quote
+        private String jsonString(int end) {
+            expect(end, '"');
+            int start = pos;
+            while (pos < end && data[pos] != '"' && data[pos] != '\\') {
+                pos++;
+            }
+            if (pos < end && data[pos] == '"') {
+                return new String(data, start, pos++ - start, StandardCharsets.UTF_8); // No escapes: the common case
+            }
+            StringBuilder sb = new StringBuilder(new String(data, start, pos - start, StandardCharsets.UTF_8));
+            while (pos < end && data[pos] != '"') {
+                if (data[pos] != '\\') {
+                    int runStart = pos;
+                    while (pos < end && data[pos] != '"' && data[pos] != '\\') {
+                        pos++;
+                    }
+                    sb.append(new String(data, runStart, pos - runStart, StandardCharsets.UTF_8));
+                    continue;
+                }
+                if (pos + 1 >= end) {
+                    break;
+                }
+                byte escape = data[pos + 1];
+                pos += 2;
+                switch (escape) {
+                    case '"': sb.append('"'); break;
+                    case '\\': sb.append('\\'); break;
+                    case '/': sb.append('/'); break;
+                    case 'b': sb.append('\b'); break;
+                    case 'f': sb.append('\f'); break;
+                    case 'n': sb.append('\n'); break;
+                    case 'r': sb.append('\r'); break;
+                    case 't': sb.append('\t'); break;
+                    case 'u':
+                        if (pos + 4 > end) {
+                            throw new IllegalArgumentException("bad \\u escape");
+                        }
+                        sb.append((char) Integer.parseInt(new String(data, pos, 4, StandardCharsets.US_ASCII), 16));
+                        pos += 4;
+                        break;
+                    default: throw new IllegalArgumentException("bad escape \\" + (char) escape);
+                }
+            }
+            expect(end, '"');
+            return sb.toString();
+        }
+
+        // Skips a value of a field we do not read, including nested objects and arrays
+        private void skipValue(int end) {
+            int depth = 0;
+            while (pos < end) {
+                byte c = data[pos];
+                if (c == '"') {
+                    jsonString(end);
+                    continue;
+                }
+                if (c == '{' || c == '[') {
+                    depth++;
+                } else if (c == '}' || c == ']') {
+                    if (depth == 0) {
+                        return;
+                    }
+                    depth--;
+                } else if (c == ',' && depth == 0) {
+                    return;
+                }
+                pos++;
+            }
+        }
+
+        private int skipSpace(int from, int end) {
+            while (from < end && (data[from] == ' ' || data[from] == '\t')) {
+                from++;
+            }
+            return from;
+        }
+
+        private void expect(int end, char c) {
+            if (pos >= end || data[pos] != c) {
+                throw new IllegalArgumentException("expected '" + c + "' at column " + pos);
+            }
+            pos++;
+        }
+
+        private int parseId(int start, int end) {
+            int i = start;
+            boolean negative = i < end && data[i] == '-';
+            if (negative) {
+                i++;
+            }
+            if (i >= end) {
+                throw new IllegalArgumentException("missing id");
+            }
+            long value = 0;
+            for (; i < end; i++) {
+                int digit = data[i] - '0';
+                if (digit < 0 || digit > 9) {
+                    throw new IllegalArgumentException("bad id '" + text(start, end) + "'");
+                }
+                value = value * 10 + digit;
+                if (value > (long) Integer.MAX_VALUE + 1) {
+                    throw new IllegalArgumentException("id out of range '" + text(start, end) + "'");
+                }
+            }
+            value = negative ? -value : value;
+            if (value > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("id out of range '" + text(start, end) + "'");
+            }
+            return (int) value;
+        }
+
+        // Case-insensitive match against the Priority names, without building a String
+        private Priority parsePriority(int start, int end) {
+            for (Priority p : Priority.values()) {
+                byte[] name = PRIORITY_NAMES[p.ordinal()];
+                if (name.length == end - start) {
+                    int i = 0;
+                    while (i < name.length && (data[start + i] & 0xDF) == name[i]) {
+                        i++;
+                    }
+                    if (i == name.length) {
+                        return p;
+                    }
+                }
+            }
+            throw new IllegalArgumentException("bad priority '" + text(start, end) + "'");
+        }
+
+        private static Priority parsePriority(String name) {
+            try {
+                return Priority.valueOf(name.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("bad priority '" + name + "'");
+            }
+        }
+
+        // yyyy-MM-dd, or an empty field for no deadline
+        private LocalDate parseDate(int start, int end) {
+            if (start == end) {
+                return null;
+            }
+            if (end - start != 10 || data[start + 4] != '-' || data[start + 7] != '-') {
+                throw new IllegalArgumentException("bad deadline '" + text(start, end) + "'");
+            }
+            return LocalDate.of(digits(start, 4), digits(start + 5, 2), digits(start + 8, 2));
+        }
+
+        private int digits(int start, int count) {
+            int value = 0;
+            for (int i = start; i < start + count; i++) {
+                int digit = data[i] - '0';
+                if (digit < 0 || digit > 9) {
+                    throw new IllegalArgumentException("bad deadline '" + text(start, start + count) + "'");
+                }
+                value = value * 10 + digit;
+            }
+            return value;
+        }
+
+        private boolean parseBoolean(int start, int end) {
+            String value = text(start, end).trim();
+            if (value.isEmpty() || value.equalsIgnoreCase("false") || value.equals("0")) {
+                return false;
+            }
+            if (value.equalsIgnoreCase("true") || value.equals("1")) {
+                return true;
+            }
+            throw new IllegalArgumentException("bad completed flag '" + value + "'");
+        }
+
+        private String text(int start, int end) {
+            return new String(data, start, end - start, StandardCharsets.UTF_8);
+        }
+
+        private void ensureScratch(int size) {
+            if (scratch.length < size) {
+                scratch = new byte[Math.max(size, scratch.length * 2)];
+            }
+        }
+
+        private static Task build(int id, String title, Priority priority, LocalDate deadline) {
+            return new Task.TaskBuilder()
+                    .setId(id)
+                    .setTitle(title)
+                    .setPriority(priority)
+                    .setDeadline(deadline)
+                    .build();
+        }
+    }
+
+    // Parsed rows of one chunk
+    private static final class Batch {
+        final List<Task> tasks = new ArrayList<>();
+        final BitSet completed = new BitSet();
+        long[] rowNumbers = new long[64];
+        final List<String> errors = new ArrayList<>(); // The first MAX_ERRORS of them
+        final long[] errorRows = new long[MAX_ERRORS];
+        long rejected;
+        long rows; // Data rows
+        long lines; // Rows including blank lines
+
+        void add(Task task, boolean done, long row) {
+            if (tasks.size() == rowNumbers.length) {
+                rowNumbers = Arrays.copyOf(rowNumbers, rowNumbers.length * 2);
+            }
+            rowNumbers[tasks.size()] = row;
+            if (done) {
+                completed.set(tasks.size());
+            }
+            tasks.add(task);
+        }
+
+        void reject(long row, String reason) {
+            if (errors.size() < MAX_ERRORS) {
+                errorRows[errors.size()] = row;
+                errors.add(reason);
+            }
+            rejected++;
+        }
+    }
+
+    // Outcome of one import
+    public static class Result {
+        private long rows;
+        private long lines;
+        private long imported;
+        private long rejected;
+        private long elapsedNanos;
+        private final List<String> errors = new ArrayList<>();
+
+        void reject(String reason) {
+            rejected++;
+            if (errors.size() < MAX_ERRORS) {
+                errors.add(reason);
+            }
+        }
+
+        // Data rows read, not counting a header or blank lines
+        public long getRows() {
+            return rows;
+        }
+
+        public long getImported() {
+            return imported;
+        }
+
+        public long getRejected() {
+            return rejected;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public double getRowsPerSecond() {
+            return rows / Math.max(elapsedNanos / 1e9, 1e-9);
+        }
+
+        // The first few rejection reasons, e.g. "row 17: bad priority 'URGENT'"
+        public List<String> getErrors() {
+            return Collections.unmodifiableList(errors);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%,d rows in %.2f s (%,.0f rows/s): %,d imported, %,d rejected",
+                    rows, elapsedNanos / 1e9, getRowsPerSecond(), imported, rejected);
+        }
+    }
+}
@@ -0,0 +1,421 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+// Append-only write-ahead log of TaskService mutations.
+//
+// Entry: int length, byte type, payload, int CRC32 of type + payload.
+//   ADD      task record in the TaskSnapshot encoding, title written inline
+//   COMPLETE zigzag varint id
+//   DELAY    zigzag varint id, zigzag varint days (read only: logs of older versions)
+//   PUT      full task state (record with the completed flag), used by BackupDaemon
+//   DEADLINE zigzag varint id, zigzag varint epoch day of the new deadline
+//
+// Every entry written today is idempotent: it states a result (a task, a completion,
+// a deadline), not a step, so replaying entries a snapshot already covers - after a
+// crash between writing the snapshot and truncating the log - changes nothing.
+//
+// Appends only encode into an in-memory buffer; awaitDurable() provides group
+// commit: the first caller to arrive writes and fsyncs everything appended so
+// far while later callers wait, so one fsync covers a whole batch of
+// concurrent mutations. Replay stops at the first torn or corrupt entry.
+public class TaskJournal implements Closeable {
+    static final byte ADD = 1;
+    static final byte COMPLETE = 2;
+    static final byte DELAY = 3;
+    static final byte PUT = 4;
+    static final byte DEADLINE = 5;
+
+    // Receives replayed entries in log order
+    public interface Handler {
+        void add(Task task);
+
+        void complete(int id);
+
+        // A relative delay, only found in logs written by older versions
+        void delay(int id, int days);
+
+        void deadline(int id, long epochDay);
+
+        // Latest state of a task; defaults to re-adding it and its completion
+        default void put(Task task, boolean completed) {
+            add(task);
+            if (completed) {
+                complete(task.getId());
+            }
+        }
+    }
+
+    private final FileChannel channel;
+    private final Object monitor = new Object();
+    private EntryBuffer pending = new EntryBuffer(); // appended, not yet written
+    private EntryBuffer spare = new EntryBuffer();
+    private long appendedSeq;
+    private long durableSeq;
+    private boolean flushing;
+    private long size;
+    private long syncCount;
+    private IOException failure;
+    private boolean closed;
+
+    private TaskJournal(FileChannel channel, long size) {
+        this.channel = channel;
+        this.size = size;
+    }
+
+    // Opens the log for appending, cutting off a torn tail left by a crash
+    public static TaskJournal open(String filename) throws IOException {
+        long valid = replay(filename, null);
+        FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (channel.size() > valid) {
+                channel.truncate(valid);
+            }
+            channel.position(valid);
+            return new TaskJournal(channel, valid);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public long appendAdd(Task task) throws IOException {
+        synchronized (monitor) {
+            int start = begin(ADD);
+            TaskSnapshot.writeRecord(pending, task, 0, false);
+            return end(start);
+        }
+    }
+
+    public long appendComplete(int id) throws IOException {
+        synchronized (monitor) {
+            int start = begin(COMPLETE);
+            pending.putVarLong(TaskSnapshot.zigZag(id));
+            return end(start);
+        }
+    }
+
+    // Logs the deadline a delay resulted in rather than the days, so replay is idempotent
+    public long appendDeadline(int id, long epochDay) throws IOException {
+        synchronized (monitor) {
+            int start = begin(DEADLINE);
+            pending.putVarLong(TaskSnapshot.zigZag(id));
+            pending.putVarLong(TaskSnapshot.zigZag(epochDay));
+            return end(start);
+        }
+    }
+
+    public long appendPut(Task task, boolean completed) throws IOException {
+        synchronized (monitor) {
+            int start = begin(PUT);
+            TaskSnapshot.writeRecord(pending, task, 0, completed);
+            return end(start);
+        }
+    }
+
+    private int begin(byte type) throws IOException {
+        if (closed) {
+            throw new IOException("Write-ahead log is closed");
+        }
+        if (failure != null) {
+            throw new IOException("Write-ahead log failed earlier", failure);
+        }
+        return pending.begin(type);
+    }
+
+    private long end(int start) {
+        pending.end(start);
+        return ++appendedSeq;
+    }
+
+    // Blocks until the entry with the given sequence number is on disk
+    public void awaitDurable(long seq) throws IOException {
+        EntryBuffer batch;
+        long target;
+        synchronized (monitor) {
+            while (true) {
+                if (durableSeq >= seq) {
+                    return;
+                }
+                if (failure != null) {
+                    throw new IOException("Write-ahead log failed", failure);
+                }
+                if (!flushing) {
+                    break;
+                }
+                try {
+                    monitor.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted waiting for write-ahead log");
+                }
+            }
+            // Become the leader: take everything appended so far as one batch
+            flushing = true;
+            batch = pending;
+            pending = spare;
+            spare = null;
+            target = appendedSeq;
+        }
+
+        long written;
+        try {
+            written = batch.writeTo(channel);
+            channel.force(false);
+        } catch (IOException e) {
+            synchronized (monitor) {
+                failure = e;
+                flushing = false;
+                monitor.notifyAll();
+            }
+            throw e;
+        }
+
+        synchronized (monitor) {
+            batch.clear();
+            spare = batch;
+            size += written;
+            durableSeq = Math.max(durableSeq, target);
+            syncCount++;
+            flushing = false;
+            monitor.notifyAll();
+        }
+    }
+
+    // Drops every entry once a snapshot covering them has been written (compaction).
+    // The caller must stop new appends for the duration, e.g. by holding its write lock.
+    public void truncate() throws IOException {
+        synchronized (monitor) {
+            while (flushing) {
+                try {
+                    monitor.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted waiting for write-ahead log");
+                }
+            }
+            channel.truncate(0);
+            channel.position(0);
+            channel.force(false);
+            pending.clear();
+            size = 0;
+            durableSeq = appendedSeq; // covered by the snapshot
+            monitor.notifyAll();
+        }
+    }
+
+    // Bytes in the log, including entries not yet written
+    public long size() {
+        synchronized (monitor) {
+            return size + pending.length();
+        }
+    }
+
+    // Number of fsyncs so far; far below the number of appends under concurrent load
+    public long getSyncCount() {
+        synchronized (monitor) {
+            return syncCount;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        long seq;
+        synchronized (monitor) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            seq = appendedSeq;
+        }
+        try {
+            awaitDurable(seq);
+        } finally {
+            channel.close();
+        }
+    }
+
+    // Feeds every intact entry to the handler (null just validates) and returns the
+    // length of the intact prefix. A missing file replays nothing.
+    public static long replay(String filename, Handler handler) throws IOException {
+        Path path = Paths.get(filename);
+        if (!Files.exists(path)) {
+            return 0;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            long position = 0;
+            ByteBuffer lengthBuffer = ByteBuffer.allocate(4);
+            CRC32 crc = new CRC32();
+            while (position + 4 <= fileSize) {
+                lengthBuffer.clear();
+                readFully(channel, lengthBuffer, position);
+                int length = lengthBuffer.getInt(0);
+                if (length < 1 || position + 4 + length + 4 > fileSize) {
+                    break; // torn tail
+                }
+                ByteBuffer entry = ByteBuffer.allocate(length + 4);
+                readFully(channel, entry, position + 4);
+                crc.reset();
+                crc.update(entry.array(), 0, length);
+                if ((int) crc.getValue() != entry.getInt(length)) {
+                    break; // corrupt tail
+                }
+                if (handler != null) {
+                    entry.position(0).limit(length);
+                    apply(entry, handler);
+                }
+                position += 4 + length + 4;
+            }
+            return position;
+        }
+    }
+
+    private static void apply(ByteBuffer entry, Handler handler) throws IOException {
+        EntryReader in = new EntryReader(entry);
+        byte type = in.getByte();
+        switch (type) {
+            case ADD:
+                handler.add(TaskSnapshot.readRecord(in, in.getByte(), in::inlineTitle));
+                break;
+            case COMPLETE:
+                handler.complete((int) TaskSnapshot.unZigZag(in.getVarLong()));
+                break;
+            case PUT:
+                int flags = in.getByte();
+                handler.put(TaskSnapshot.readRecord(in, flags, in::inlineTitle), (flags & TaskSnapshot.FLAG_COMPLETED) != 0);
+                break;
+            case DELAY:
+                int id = (int) TaskSnapshot.unZigZag(in.getVarLong());
+                handler.delay(id, (int) TaskSnapshot.unZigZag(in.getVarLong()));
+                break;
+            case DEADLINE:
+                int taskId = (int) TaskSnapshot.unZigZag(in.getVarLong());
+                handler.deadline(taskId, TaskSnapshot.unZigZag(in.getVarLong()));
+                break;
+            default:
+                throw new IOException("Unknown write-ahead log entry type " + type);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Unexpected end of write-ahead log");
+            }
+        }
+    }
+
+    // Growable heap buffer of framed entries
+    private static class EntryBuffer implements TaskSnapshot.Sink {
+        private byte[] bytes = new byte[8192];
+        private int length;
+        private final CRC32 crc = new CRC32();
+
+        private void ensure(int extra) {
+            if (length + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(length + extra, bytes.length << 1));
+            }
+        }
+
+        // Reserves the length prefix and writes the type; returns the entry start
+        int begin(byte type) {
+            ensure(5);
+            int start = length;
+            length += 4;
+            bytes[length++] = type;
+            return start;
+        }
+
+        // Fills in the length prefix and appends the checksum
+        void end(int start) {
+            int bodyLength = length - start - 4;
+            ByteBuffer.wrap(bytes, start, 4).putInt(bodyLength);
+            crc.reset();
+            crc.update(bytes, start + 4, bodyLength);
+            ensure(4);
+            ByteBuffer.wrap(bytes, length, 4).putInt((int) crc.getValue());
+            length += 4;
+        }
+
+        @Override
+        public void putByte(int b) {
+            ensure(1);
+            bytes[length++] = (byte) b;
+        }
+
+        @Override
+        public void putVarLong(long v) {
+            ensure(10);
+            while ((v & ~0x7FL) != 0) {
+                bytes[length++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            bytes[length++] = (byte) v;
+        }
+
+        // Titles are written inline as (length + 1, UTF-8 bytes); 0 means null
+        @Override
+        public void putTitle(String title, long ref) {
+            if (title == null) {
+                putVarLong(0);
+                return;
+            }
+            byte[] utf8 = title.getBytes(StandardCharsets.UTF_8);
+            putVarLong(utf8.length + 1L);
+            ensure(utf8.length);
+            System.arraycopy(utf8, 0, bytes, length, utf8.length);
+            length += utf8.length;
+        }
+
+        int length() {
+            return length;
+        }
+
+        long writeTo(FileChannel channel) throws IOException {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, length);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            return length;
+        }
+
+        void clear() {
+            length = 0;
+        }
+    }
+
+    private static class EntryReader implements TaskSnapshot.Source {
+        private final ByteBuffer buffer;
+
+        EntryReader(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public byte getByte() throws IOException {
+            if (!buffer.hasRemaining()) {
+                throw new EOFException("Write-ahead log entry is truncated");
+            }
+            return buffer.get();
+        }
+
+        String inlineTitle(long ref) throws IOException {
+            if (ref == 0) {
+                return null;
+            }
+            long length = ref - 1;
+            if (length > buffer.remaining()) {
+                throw new IOException("Invalid title length " + length);
+            }
+            byte[] utf8 = new byte[(int) length];
+            buffer.get(utf8);
+            return new String(utf8, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,252 @@
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Call counts and latency per TaskOperations method, driven by @LogExecution:
+//
+//   TaskMetrics metrics = new TaskMetrics();
+//   TaskOperations ops = metrics.instrument(service);
+//   ops.markCompleted(1);
+//   System.out.print(metrics.dump());
+//
+// instrument() returns a dynamic proxy. A call to a method that the target's
+// class annotates with @LogExecution is timed with System.nanoTime() into the
+// method's LatencyHistogram; other methods pass straight through. The hot path
+// is one map lookup, a call through a MethodHandle bound to the target (no
+// reflective Method.invoke with its access checks and exception wrapping) and
+// lock-free counter updates. Calls through every proxy made by the same
+// TaskMetrics are counted together.
+public class TaskMetrics {
+    private final Map<String, MethodRecorder> recorders = new ConcurrentHashMap<>(); // By method signature
+    private volatile long sinceNanos = System.nanoTime();
+
+    public TaskOperations instrument(TaskOperations target) {
+        return (TaskOperations) Proxy.newProxyInstance(TaskOperations.class.getClassLoader(),
+                new Class<?>[] { TaskOperations.class }, new Handler(target));
+    }
+
+    // Per-method statistics since creation or the last reset, busiest method first
+    public List<MethodStats> snapshot() {
+        double seconds = Math.max(System.nanoTime() - sinceNanos, 1) / 1e9;
+        List<MethodStats> stats = new ArrayList<>();
+        for (MethodRecorder recorder : recorders.values()) {
+            LatencyHistogram.Snapshot latency = recorder.latency.snapshot();
+            if (latency.getCount() > 0) {
+                stats.add(new MethodStats(recorder.signature, recorder.description, latency,
+                        recorder.errors.sum(), latency.getCount() / seconds));
+            }
+        }
+        stats.sort(Comparator.comparingLong(MethodStats::getCalls).reversed()
+                .thenComparing(MethodStats::getMethod));
+        return stats;
+    }
+
+    public void reset() {
+        for (MethodRecorder recorder : recorders.values()) {
+            recorder.latency.reset();
+            recorder.errors.reset();
+        }
+        sinceNanos = System.nanoTime();
+    }
+
+    // Human-readable table
+    public String dump() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-42s %9s %7s %10s %9s %9s %9s %9s %9s%n",
+                "method", "calls", "errors", "calls/s", "mean", "p50", "p99", "p99.9", "max"));
+        for (MethodStats s : snapshot()) {
+            sb.append(String.format("%-42s %9d %7d %10.1f %9s %9s %9s %9s %9s%n", s.getMethod(), s.getCalls(),
+                    s.getErrors(), s.getCallsPerSecond(), formatNanos((long) s.getMeanNanos()),
+                    formatNanos(s.getPercentileNanos(50)), formatNanos(s.getPercentileNanos(99)),
+                    formatNanos(s.getPercentileNanos(99.9)), formatNanos(s.getMaxNanos())));
+        }
+        return sb.toString();
+    }
+
+    // One CSV row per method, latencies in nanoseconds, for dashboards and spreadsheets
+    public void exportCsv(Writer out) throws IOException {
+        out.write("method,description,calls,errors,calls_per_sec,mean_ns,p50_ns,p90_ns,p99_ns,p999_ns,max_ns\n");
+        for (MethodStats s : snapshot()) {
+            out.write(csv(s.getMethod()) + "," + csv(s.getDescription()) + "," + s.getCalls() + "," + s.getErrors()
+                    + "," + String.format("%.1f", s.getCallsPerSecond()) + "," + Math.round(s.getMeanNanos())
+                    + "," + s.getPercentileNanos(50) + "," + s.getPercentileNanos(90) + "," + s.getPercentileNanos(99)
+                    + "," + s.getPercentileNanos(99.9) + "," + s.getMaxNanos() + "\n");
+        }
+        out.flush();
+    }
+
+    private static String csv(String field) {
+        return "\"" + field.replace("\"", "\"\"") + "\"";
+    }
+
+    private static String formatNanos(long nanos) {
+        if (nanos < 10_000) {
+            return nanos + "ns";
+        }
+        if (nanos < 10_000_000) {
+            return String.format("%.1fus", nanos / 1e3);
+        }
+        if (nanos < 10_000_000_000L) {
+            return String.format("%.1fms", nanos / 1e6);
+        }
+        return String.format("%.1fs", nanos / 1e9);
+    }
+
+    private MethodRecorder recorderFor(Object target, Method method) {
+        LogExecution log;
+        try {
+            log = target.getClass().getMethod(method.getName(), method.getParameterTypes())
+                    .getAnnotation(LogExecution.class);
+        } catch (NoSuchMethodException e) {
+            log = null;
+        }
+        if (log == null) {
+            return MethodRecorder.PASS_THROUGH;
+        }
+        StringJoiner parameters = new StringJoiner(", ", method.getName() + "(", ")");
+        for (Class<?> type : method.getParameterTypes()) {
+            parameters.add(type.getSimpleName());
+        }
+        String key = parameters.toString();
+        String description = log.value();
+        return recorders.computeIfAbsent(key, k -> new MethodRecorder(k, description));
+    }
+
+    private class Handler implements InvocationHandler {
+        private final TaskOperations target;
+        private final Map<Method, Call> byMethod = new ConcurrentHashMap<>();
+
+        Handler(TaskOperations target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Call call = byMethod.get(method);
+            if (call == null) {
+                call = byMethod.computeIfAbsent(method, this::bind);
+            }
+            if (call.recorder == MethodRecorder.PASS_THROUGH) {
+                return call.handle.invokeExact(args);
+            }
+            long start = System.nanoTime();
+            boolean failed = true;
+            try {
+                Object result = call.handle.invokeExact(args); // Throws the target's own exception
+                failed = false;
+                return result;
+            } finally {
+                call.recorder.record(System.nanoTime() - start, failed);
+            }
+        }
+
+        // (Object[] args) -> Object, calling the method on the target
+        private Call bind(Method method) {
+            MethodHandle handle;
+            try {
+                handle = MethodHandles.lookup().unreflect(method).bindTo(target);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Cannot call " + method, e);
+            }
+            handle = handle.asSpreader(Object[].class, method.getParameterCount())
+                    .asType(MethodType.methodType(Object.class, Object[].class));
+            return new Call(handle, recorderFor(target, method));
+        }
+    }
+
+    private static final class Call {
+        final MethodHandle handle;
+        final MethodRecorder recorder;
+
+        Call(MethodHandle handle, MethodRecorder recorder) {
+            this.handle = handle;
+            this.recorder = recorder;
+        }
+    }
+
+    private static final class MethodRecorder {
+        static final MethodRecorder PASS_THROUGH = new MethodRecorder("", "");
+
+        final String signature;
+        final String description;
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder errors = new LongAdder();
+
+        MethodRecorder(String signature, String description) {
+            this.signature = signature;
+            this.description = description;
+        }
+
+        void record(long nanos, boolean failed) {
+            latency.record(nanos);
+            if (failed) {
+                errors.increment();
+            }
+        }
+    }
+
+    // Statistics of one instrumented method
+    public static class MethodStats {
+        private final String method;
+        private final String description;
+        private final LatencyHistogram.Snapshot latency;
+        private final long errors;
+        private final double callsPerSecond;
+
+        MethodStats(String method, String description, LatencyHistogram.Snapshot latency, long errors,
+                    double callsPerSecond) {
+            this.method = method;
+            this.description = description;
+            this.latency = latency;
+            this.errors = errors;
+            this.callsPerSecond = callsPerSecond;
+        }
+
+        // Signature such as markCompleted(int)
+        public String getMethod() {
+            return method;
+        }
+
+        // The @LogExecution value
+        public String getDescription() {
+            return description;
+        }
+
+        public long getCalls() {
+            return latency.getCount();
+        }
+
+        // Calls that threw
+        public long getErrors() {
+            return errors;
+        }
+
+        public double getCallsPerSecond() {
+            return callsPerSecond;
+        }
+
+        public double getMeanNanos() {
+            return latency.getMean();
+        }
+
+        public long getPercentileNanos(double percentile) {
+            return latency.getValueAtPercentile(percentile);
+        }
+
+        public long getMaxNanos() {
+            return latency.getMax();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.channels.WritableByteChannel;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+// The operations TaskService offers to callers, as an interface so they can be
+// wrapped - e.g. by TaskMetrics.instrument(), which times every @LogExecution method.
+public interface TaskOperations {
+    // Changes
+    void addTask(Task task) throws InvalidTaskException;
+
+    void addTasks(List<Task> batch) throws InvalidTaskException;
+
+    void markCompleted(int id) throws InvalidTaskException;
+
+    void delayTask(int id, int days) throws InvalidTaskException;
+
+    // Lookups and queries
+    Task getTaskOrDefault(int id, Supplier<Task> defaultSupplier);
+
+    List<Task> getOverdueTasks();
+
+    List<Task> getOverdueTasks(LocalDate asOf);
+
+    List<Task> getNextDueTasks(int n, LocalDate from);
+
+    List<Task> searchTitles(String words);
+
+    List<Task> searchTitlesAsTyped(String text);
+
+    List<String> suggestTitleWords(String prefix, int limit);
+
+    List<Task> query(TaskQuery query);
+
+    String explain(TaskQuery query);
+
+    List<Task> getSortedPage(TaskQuery.Order order, int page, int pageSize);
+
+    List<Task> filterTasks(Predicate<Task> predicate);
+
+    <R> List<R> mapTasks(Function<Task, R> function);
+
+    void processTasks(Consumer<Task> consumer);
+
+    List<Task> filterTasksParallel(Predicate<Task> predicate);
+
+    <R> List<R> mapTasksParallel(Function<Task, R> function);
+
+    void processTasksParallel(Consumer<Task> consumer);
+
+    // Display
+    void displayTasks();
+
+    void showCompleted();
+
+    void showPending();
+
+    void groupByPriority();
+
+    void displayTaskSummary();
+
+    void sortTasksByTitle();
+
+    // Strings & Arrays
+    String getCombinedTaskTitles();
+
+    String getCombinedTaskTitles(int limit);
+
+    String getCombinedTaskTitlesParallel();
+
+    String generateReport();
+
+    void writeReport(Writer out) throws IOException;
+
+    void writeReport(WritableByteChannel out) throws IOException;
+
+    String[] getTaskTitlesArray();
+
+    String[][] getTaskMatrix();
+
+    void exportTasks(OutputStream out, TaskImporter.Format format) throws IOException;
+
+    // Change feed
+    TaskChangeFeed.Subscription subscribeToChanges();
+
+    TaskChangeFeed.Subscription subscribeToChanges(long fromSequence);
+
+    // Persistence
+    void loadFromFile(String filename);
+
+    void loadFromFile(String filename, boolean mapped);
+
+    void saveToFile(String filename);
+
+    void openWriteAheadLog(String filename) throws IOException;
+
+    void closeWriteAheadLog() throws IOException;
+}
@@ -0,0 +1,247 @@
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.function.Predicate;
+
+// Declarative query for TaskService.query(). Unlike an opaque Predicate, each
+// condition is visible to the service, which picks the narrowest index that
+// can answer one of them (see TaskService.explain()) and checks the rest on
+// the candidates only. Unset conditions match everything.
+//
+//   TaskQuery q = new TaskQuery.Builder()
+//           .setPriorities(Priority.HIGH)
+//           .setCompleted(false)
+//           .setOrderBy(TaskQuery.Order.DEADLINE)
+//           .setLimit(10)
+//           .build();
+public class TaskQuery {
+    public enum Order {
+        SLOT,     // insertion order (default)
+        ID,
+        TITLE,    // case-insensitive
+        PRIORITY, // HIGH first
+        DEADLINE  // earliest first, tasks without a deadline last
+    }
+
+    private final Integer minId;
+    private final Integer maxId;
+    private final Set<Priority> priorities;
+    private final Boolean completed;
+    private final LocalDate deadlineFrom;
+    private final LocalDate deadlineTo;
+    private final long deadlineFromDay; // Epoch days of the range, open ends widened to the extremes
+    private final long deadlineToDay;
+    private final String titlePrefix;
+    private final Predicate<Task> filter;
+    private final Order orderBy;
+    private final int offset;
+    private final int limit;
+
+    private TaskQuery(Builder b) {
+        this.minId = b.minId;
+        this.maxId = b.maxId;
+        this.priorities = b.priorities;
+        this.completed = b.completed;
+        this.deadlineFrom = b.deadlineFrom;
+        this.deadlineTo = b.deadlineTo;
+        this.deadlineFromDay = deadlineFrom != null ? deadlineFrom.toEpochDay() : Long.MIN_VALUE;
+        this.deadlineToDay = deadlineTo != null ? deadlineTo.toEpochDay() : Long.MAX_VALUE;
+        this.titlePrefix = b.titlePrefix;
+        this.filter = b.filter;
+        this.orderBy = b.orderBy;
+        this.offset = b.offset;
+        this.limit = b.limit;
+    }
+
+    public static class Builder {
+        private Integer minId;
+        private Integer maxId;
+        private Set<Priority> priorities;
+        private Boolean completed;
+        private LocalDate deadlineFrom;
+        private LocalDate deadlineTo;
+        private String titlePrefix;
+        private Predicate<Task> filter;
+        private Order orderBy = Order.SLOT;
+        private int offset;
+        private int limit = Integer.MAX_VALUE;
+
+        // Inclusive on both ends
+        public Builder setIdRange(int minId, int maxId) {
+            this.minId = minId;
+            this.maxId = maxId;
+            return this;
+        }
+
+        public Builder setPriorities(Priority... priorities) {
+            this.priorities = priorities.length == 0 ? EnumSet.noneOf(Priority.class) : EnumSet.copyOf(Arrays.asList(priorities));
+            return this;
+        }
+
+        public Builder setCompleted(boolean completed) {
+            this.completed = completed;
+            return this;
+        }
+
+        // Inclusive on both ends; null leaves that end open. Tasks without a deadline never match.
+        public Builder setDeadlineRange(LocalDate from, LocalDate to) {
+            this.deadlineFrom = from;
+            this.deadlineTo = to;
+            return this;
+        }
+
+        // Case-insensitive
+        public Builder setTitlePrefix(String titlePrefix) {
+            this.titlePrefix = titlePrefix;
+            return this;
+        }
+
+        // Residual condition no index can answer; always checked last
+        public Builder setFilter(Predicate<Task> filter) {
+            this.filter = filter;
+            return this;
+        }
+
+        public Builder setOrderBy(Order orderBy) {
+            this.orderBy = orderBy;
+            return this;
+        }
+
+        public Builder setOffset(int offset) {
+            if (offset < 0) {
+                throw new IllegalArgumentException("offset must be >= 0");
+            }
+            this.offset = offset;
+            return this;
+        }
+
+        public Builder setLimit(int limit) {
+            if (limit < 0) {
+                throw new IllegalArgumentException("limit must be >= 0");
+            }
+            this.limit = limit;
+            return this;
+        }
+
+        public TaskQuery build() {
+            if (minId != null && minId > maxId) {
+                throw new IllegalArgumentException("minId must be <= maxId");
+            }
+            return new TaskQuery(this);
+        }
+    }
+
+    public Integer getMinId() {
+        return minId;
+    }
+
+    public Integer getMaxId() {
+        return maxId;
+    }
+
+    public Set<Priority> getPriorities() {
+        return priorities;
+    }
+
+    public Boolean getCompleted() {
+        return completed;
+    }
+
+    public LocalDate getDeadlineFrom() {
+        return deadlineFrom;
+    }
+
+    public LocalDate getDeadlineTo() {
+        return deadlineTo;
+    }
+
+    public boolean hasDeadlineRange() {
+        return deadlineFrom != null || deadlineTo != null;
+    }
+
+    public String getTitlePrefix() {
+        return titlePrefix;
+    }
+
+    public Predicate<Task> getFilter() {
+        return filter;
+    }
+
+    public Order getOrderBy() {
+        return orderBy;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    // Every condition except the completion flag, which is checked against the service's index.
+    // Reads the fields through the store, so only a custom filter needs the Task itself.
+    boolean matches(TaskStore store, int slot) {
+        if (minId != null) {
+            int id = store.getId(slot);
+            if (id < minId || id > maxId) {
+                return false;
+            }
+        }
+        if (priorities != null && !priorities.contains(store.getPriority(slot))) {
+            return false;
+        }
+        if (hasDeadlineRange()) {
+            long day = store.getDeadlineDay(slot);
+            if (day == TaskStore.NO_DEADLINE || day < deadlineFromDay || day > deadlineToDay) {
+                return false;
+            }
+        }
+        if (titlePrefix != null) {
+            String title = store.getTitle(slot);
+            if (title == null || !title.regionMatches(true, 0, titlePrefix, 0, titlePrefix.length())) {
+                return false;
+            }
+        }
+        return filter == null || filter.test(store.get(slot));
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("TaskQuery[");
+        int start = sb.length();
+        if (minId != null) {
+            sb.append("id ").append(minId).append("..").append(maxId).append(", ");
+        }
+        if (priorities != null) {
+            sb.append("priority in ").append(priorities).append(", ");
+        }
+        if (completed != null) {
+            sb.append("completed=").append(completed).append(", ");
+        }
+        if (hasDeadlineRange()) {
+            sb.append("deadline ").append(deadlineFrom != null ? deadlineFrom : "*")
+                    .append("..").append(deadlineTo != null ? deadlineTo : "*").append(", ");
+        }
+        if (titlePrefix != null) {
+            sb.append("title starts with \"").append(titlePrefix).append("\", ");
+        }
+        if (filter != null) {
+            sb.append("custom filter, ");
+        }
+        if (orderBy != Order.SLOT) {
+            sb.append("order by ").append(orderBy).append(", ");
+        }
+        if (offset > 0) {
+            sb.append("offset ").append(offset).append(", ");
+        }
+        if (limit != Integer.MAX_VALUE) {
+            sb.append("limit ").append(limit).append(", ");
+        }
+        if (sb.length() > start) {
+            sb.setLength(sb.length() - 2);
+        }
+        return sb.append(']').toString();
+    }
+}
@@ -0,0 +1,141 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+
+// Runs predicates, mappers and actions over the task slots on a dedicated
+// ForkJoinPool, so large queries use every core without competing with the
+// common pool used by parallel streams elsewhere in the JVM.
+// The slots are cut into fixed chunks of consecutive positions (cache-friendly,
+// and each chunk's results stay in order); the chunks are split recursively
+// across workers and their results concatenated once at the end. Inputs below
+// the sequential threshold, or a parallelism of 1, run on the calling thread.
+public class TaskQueryEngine implements AutoCloseable {
+    private final ForkJoinPool pool;
+    private final int parallelism;
+    private final int sequentialThreshold;
+    private final int chunkSize;
+
+    public TaskQueryEngine() {
+        this(Runtime.getRuntime().availableProcessors(), 16_384, 4_096);
+    }
+
+    public TaskQueryEngine(int parallelism, int sequentialThreshold, int chunkSize) {
+        if (parallelism < 1 || sequentialThreshold < 0 || chunkSize < 1) {
+            throw new IllegalArgumentException("parallelism and chunkSize must be >= 1, sequentialThreshold >= 0");
+        }
+        this.parallelism = parallelism;
+        this.sequentialThreshold = sequentialThreshold;
+        this.chunkSize = chunkSize;
+        // Worker threads are created on demand and are daemon threads
+        this.pool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public int getSequentialThreshold() {
+        return sequentialThreshold;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    boolean runsInParallel(int size) {
+        return pool != null && size >= sequentialThreshold && size > chunkSize;
+    }
+
+    // Maps every task that passes the filter, keeping slot order
+    <R> List<R> filterMap(int size, IntFunction<Task> slots, Predicate<? super Task> filter,
+                          Function<? super Task, ? extends R> mapper) {
+        if (!runsInParallel(size)) {
+            return filterMapRange(0, size, slots, filter, mapper);
+        }
+        int chunks = (size + chunkSize - 1) / chunkSize;
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        List<R>[] parts = new List[chunks];
+        runChunks(chunks, c -> parts[c] = filterMapRange(c * chunkSize, Math.min(size, (c + 1) * chunkSize),
+                slots, filter, mapper));
+        int total = 0;
+        for (List<R> part : parts) {
+            total += part.size();
+        }
+        List<R> result = new ArrayList<>(total);
+        for (List<R> part : parts) {
+            result.addAll(part);
+        }
+        return result;
+    }
+
+    // Applies the action to every task; in parallel the order is unspecified and
+    // the action must be thread-safe
+    void forEach(int size, IntFunction<Task> slots, Consumer<? super Task> action) {
+        if (!runsInParallel(size)) {
+            for (int i = 0; i < size; i++) {
+                action.accept(slots.apply(i));
+            }
+            return;
+        }
+        int chunks = (size + chunkSize - 1) / chunkSize;
+        runChunks(chunks, c -> {
+            for (int i = c * chunkSize, end = Math.min(size, i + chunkSize); i < end; i++) {
+                action.accept(slots.apply(i));
+            }
+        });
+    }
+
+    private static <R> List<R> filterMapRange(int from, int to, IntFunction<Task> slots,
+                                              Predicate<? super Task> filter, Function<? super Task, ? extends R> mapper) {
+        List<R> result = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            Task task = slots.apply(i);
+            if (filter.test(task)) {
+                result.add(mapper.apply(task));
+            }
+        }
+        return result;
+    }
+
+    // Exceptions thrown by a chunk are rethrown to the caller
+    private void runChunks(int chunks, IntConsumer chunk) {
+        pool.invoke(new ChunkAction(0, chunks, chunk));
+    }
+
+    @Override
+    public void close() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    // Splits the chunk range in halves until a single chunk is left
+    private static final class ChunkAction extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int from;
+        private final int to;
+        private final transient IntConsumer chunk;
+
+        ChunkAction(int from, int to, IntConsumer chunk) {
+            this.from = from;
+            this.to = to;
+            this.chunk = chunk;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                chunk.accept(from);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new ChunkAction(from, mid, chunk), new ChunkAction(mid, to, chunk));
+        }
+    }
+}
@@ -1,19 +1,104 @@
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
 import java.util.*;
 import java.util.stream.*;
 import java.util.function.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.StampedLock;
 
-public class TaskService {
-    private List<Task> tasks = new ArrayList<>();
-    private Set<Integer> completedTasks = new HashSet<>();
-    private final Object lock = new Object();
-    private boolean newTaskAdded = false;
+// Thread-safe: the task list and its indexes are guarded by a StampedLock.
+// Only completions are striped: markCompleted takes the shared read lock and
+// flips the task's bit with a CAS, so completions of different tasks run in
+// parallel. addTask, addTasks, delayTask and loadFromFile are not striped; they
+// take the write lock, as do delay() and setDeadline() on a DeadlineTask the
+// service handed out (see TaskStore.Scheduler). Point reads use an optimistic read and
+// scans hold the read lock for a consistent view of the task list. Callbacks
+// passed to the scanning methods must not call back into mutating methods,
+// delay() on a task included.
+//
+// Mapped read mode: loadFromFile(filename, true) maps a version 2 snapshot instead
+// of reading it (see MappedTaskSnapshot). Lookups by ID decode just that task;
+// changing a task first moves it from the snapshot into the store, and the first
+// scan (queries, reports, exports, saveToFile, ...) moves all the rest.
+//
+// Durability: once openWriteAheadLog() is called, every addTask, markCompleted
+// and delayTask is appended to a TaskJournal and the call returns only after
+// the entry is fsynced (group-committed with concurrent callers). saveToFile on
+// the same file compacts the log into the snapshot, which also happens
+// automatically once the log grows past the compaction threshold.
+public class TaskService implements TaskOperations {
+    private TaskStore tasks; // Slot -> task; HeapTaskStore unless another store is passed in
+    private IdIndex taskIndex = new IdIndex(); // Primary index: task ID -> position in tasks
+    private volatile MappedTaskSnapshot mapped; // Mapped read mode: tasks not moved into the store yet
+    // Secondary indexes keyed by task slot (position in tasks)
+    private EnumMap<Priority, IntList> priorityIndex = newPriorityIndex();
+    private IntList unprioritized = new IntList(); // Slots of tasks with a null priority (TaskBuilder's default)
+    private CompletionSet completedTasks = new CompletionSet();
+    private final DeadlineIndex deadlineIndex = new DeadlineIndex(); // Pending Schedulable tasks by deadline
+    private final AtomicInteger deadlineTombstones = new AtomicInteger(); // Completed slots left in deadlineIndex
+    private final TaskStore.Scheduler scheduler = this::reschedule; // Receives delay() on stored DeadlineTasks
+    private final TitleIndex titleIndex = new TitleIndex(); // Title words -> slots
+    private volatile List<String> titleKeys; // Case-folded title by slot, built by the first title sort
+    private final Object titleKeysLock = new Object(); // Lets one reader build titleKeys
+    private final StampedLock stateLock = new StampedLock();
+    private final Object lock = new Object(); // Signals BackupDaemon
+    private final ChangeTracker changes = new ChangeTracker(64); // Slots changed since the last backup
+    private volatile int backupBatchSize = Integer.MAX_VALUE; // Pending count that wakes the daemon early
+    private final List<Consumer<String>> snapshotListeners = new CopyOnWriteArrayList<>();
+    private final TaskChangeFeed changeFeed = new TaskChangeFeed(1 << 16); // Ordered change events for subscribers
+    private TaskJournal journal; // Write-ahead log, null until openWriteAheadLog
+    private String journalSnapshot; // Snapshot file the log is compacted into
+    private volatile long compactionThreshold = 64L << 20;
+    private final Clock clock; // Source of "today" for deadline checks
+    private volatile TaskQueryEngine queryEngine = new TaskQueryEngine(); // Runs the *Parallel queries
+    private static final int REPORT_CHUNK = 8192; // Chars rendered per chunk of a streamed report
+    private static final int EXPORT_CHUNK = 64 << 10; // Bytes encoded per chunk of a streamed export
+    private static final int TITLE_CHUNK = 16384; // Titles joined per task by getCombinedTaskTitlesParallel
+    private static final int MAX_ID_LOOKUPS = 1 << 16; // Widest ID range a query answers by point lookups
+    private static final int MIN_TOMBSTONE_PURGE = 1024; // Fewest tombstones worth a write-locked purge
+
+    public TaskService() {
+        this(Clock.systemDefaultZone());
+    }
+
+    public TaskService(Clock clock) {
+        this(clock, new HeapTaskStore());
+    }
+
+    // E.g. new TaskService(new ColumnarTaskStore()) for compact, scan-friendly storage
+    public TaskService(TaskStore store) {
+        this(Clock.systemDefaultZone(), store);
+    }
+
+    public TaskService(Clock clock, TaskStore store) {
+        if (!store.isEmpty()) {
+            throw new IllegalArgumentException("store must be empty");
+        }
+        this.clock = clock;
+        this.tasks = store;
+        store.setScheduler(scheduler);
+    }
 
     // Member Inner Class
     public class TaskLogger {
         public void logTaskCount() {
-            System.out.println("TaskLogger [Member Inner Class]: Total tasks = " + tasks.size() +
-                    ", Completed tasks = " + completedTasks.size());
+            loadAllMapped();
+            int[] counts = readOptimistic(() -> new int[] { tasks.size(), completedTasks.size() });
+            System.out.println("TaskLogger [Member Inner Class]: Total tasks = " + counts[0] +
+                    ", Completed tasks = " + counts[1]);
         }
     }
 
@@ -22,57 +107,704 @@ public class TaskService {
     }
 
     @LogExecution("Adding a new task")
-    public void addTask(Task task) {
+    public void addTask(Task task) throws InvalidTaskException {
+        TaskJournal wal;
+        long seq = 0;
+        int pending;
+        TaskChangeFeed.Event event;
+        long stamp = stateLock.writeLock();
+        try {
+            if (exists(task.getId())) {
+                throw new InvalidTaskException("Task ID " + task.getId() + " already exists");
+            }
+            tasks.reserve(Collections.singletonList(task)); // A full store throws before anything is logged
+            wal = journal;
+            if (wal != null) {
+                seq = wal.appendAdd(task);
+            }
+            int slot = insertTask(task);
+            pending = changes.mark(slot);
+            event = changeFeed.added(tasks, slot);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Write-ahead log failed", e);
+        } finally {
+            stateLock.unlockWrite(stamp);
+        }
+        signalChanges(pending);
+        changeFeed.publish(event); // Outside the lock: may wait for a slow subscriber
+        awaitJournal(wal, seq);
+    }
+
+    // Adds a whole batch under one write lock acquisition, with one backup daemon wake-up
+    // and (with a write-ahead log) one fsync. All or nothing: if an ID is already present
+    // or repeats within the batch, nothing is added.
+    @LogExecution("Adding a batch of tasks")
+    public void addTasks(List<Task> batch) throws InvalidTaskException {
+        addTasks(batch, null);
+    }
+
+    // As addTasks(batch); the tasks at the positions set in completed are added completed
+    void addTasks(List<Task> batch, BitSet completed) throws InvalidTaskException {
+        addBatch(batch, completed, null);
+    }
+
+    // For TaskImporter: adds the tasks whose ID is free in one write lock acquisition and
+    // returns the positions in the batch of the others - IDs already present, or repeating
+    // an earlier task of the batch - which are left out
+    BitSet addTasksSkippingTaken(List<Task> batch, BitSet completed) {
+        BitSet skipped = new BitSet();
+        try {
+            addBatch(batch, completed, skipped);
+        } catch (InvalidTaskException e) {
+            throw new IllegalStateException("Skipping batch rejected a task", e); // Cannot happen
+        }
+        return skipped;
+    }
+
+    // With skipped null a taken or repeated ID rejects the whole batch; otherwise its
+    // position is added to skipped and the rest of the batch goes in
+    private void addBatch(List<Task> batch, BitSet completed, BitSet skipped) throws InvalidTaskException {
+        if (batch.isEmpty()) {
+            return;
+        }
+        TaskJournal wal;
+        long seq = 0;
+        List<TaskChangeFeed.Event> events = new ArrayList<>(batch.size());
+        long stamp = stateLock.writeLock();
+        try {
+            IdIndex batchIds = new IdIndex(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                int id = batch.get(i).getId();
+                String conflict = exists(id) ? "Task ID " + id + " already exists"
+                        : batchIds.putIfAbsent(id, i) >= 0 ? "Task ID " + id + " appears twice in the batch" : null;
+                if (conflict != null) {
+                    if (skipped == null) {
+                        throw new InvalidTaskException(conflict);
+                    }
+                    skipped.set(i);
+                }
+            }
+            if (skipped != null && skipped.cardinality() == batch.size()) {
+                return;
+            }
+            List<Task> added = batch;
+            if (skipped != null && !skipped.isEmpty()) {
+                added = new ArrayList<>(batch.size() - skipped.cardinality());
+                for (int i = skipped.nextClearBit(0); i < batch.size(); i = skipped.nextClearBit(i + 1)) {
+                    added.add(batch.get(i));
+                }
+            }
+            tasks.reserve(added); // A batch that does not fit throws before anything is logged
+            wal = journal;
+            if (wal != null) {
+                for (int i = 0; i < batch.size(); i++) {
+                    if (skipped != null && skipped.get(i)) {
+                        continue;
+                    }
+                    seq = wal.appendAdd(batch.get(i));
+                    if (completed != null && completed.get(i)) {
+                        seq = wal.appendComplete(batch.get(i).getId());
+                    }
+                }
+            }
+            taskIndex.ensureCapacity(tasks.size() + batch.size());
+            int first = tasks.size();
+            for (int i = 0; i < batch.size(); i++) {
+                if (skipped != null && skipped.get(i)) {
+                    continue;
+                }
+                int slot = insertTask(batch.get(i));
+                changes.mark(slot);
+                if (completed != null && completed.get(i)) {
+                    completedTasks.add(slot);
+                    unindexDeadline(slot);
+                }
+            }
+            // Claimed only once every task is in: a claimed event must be published
+            for (int slot = first; slot < tasks.size(); slot++) {
+                events.add(changeFeed.added(tasks, slot));
+                if (completedTasks.contains(slot)) {
+                    events.add(changeFeed.completed(tasks.getId(slot)));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Write-ahead log failed", e);
+        } finally {
+            stateLock.unlockWrite(stamp);
+        }
         synchronized (lock) {
-            tasks.add(task);
-            newTaskAdded = true;
-            lock.notifyAll(); // Notify waiting threads (like BackupDaemon)
+            lock.notifyAll(); // One wake-up for the whole batch
+        }
+        for (TaskChangeFeed.Event event : events) {
+            changeFeed.publish(event);
         }
+        awaitJournal(wal, seq);
+    }
+
+    // Callers hold the write lock and have checked the ID is unused; returns the new slot
+    private int insertTask(Task task) {
+        int slot = tasks.add(task);
+        taskIndex.putIfAbsent(task.getId(), slot);
+        priorityBucket(task.getPriority()).add(slot);
+        indexDeadline(slot);
+        titleIndex.add(slot, task.getTitle());
+        List<String> keys = titleKeys;
+        if (keys != null) {
+            keys.add(collationKey(task.getTitle()));
+        }
+        completedTasks.ensureCapacity(tasks.size()); // markCompleted never grows the bitset
+        changes.ensureCapacity(tasks.size());
+        return slot;
     }
 
     @LogExecution("Marking task as completed")
     public void markCompleted(int id) throws InvalidTaskException {
-        boolean exists = tasks.stream().anyMatch(t -> t.getId() == id);
+        TaskJournal wal;
+        long seq = 0;
+        int pending;
+        boolean purge = false;
+        TaskChangeFeed.Event event;
+        materializeForUpdate(id);
+        // Shared lock only: the CAS on the task's bitset word is the per-task write
+        long stamp = stateLock.readLock();
+        try {
+            int slot = taskIndex.get(id);
+            if (slot < 0) {
+                throw new InvalidTaskException("Task ID not found");
+            }
+
+            // The CAS claims the completion, so only one racer logs it
+            if (!completedTasks.add(slot)) {
+                throw new InvalidTaskException("Task already completed");
+            }
+            wal = journal;
+            if (wal != null) {
+                try {
+                    seq = wal.appendComplete(id);
+                } catch (IOException e) {
+                    completedTasks.remove(slot); // Not logged, so not completed
+                    throw e;
+                }
+            }
+            if (tasks.getDeadlineDay(slot) != TaskStore.NO_DEADLINE) {
+                // Left in the deadline index as a tombstone: removing it there would serialize completions
+                deadlineTombstones.incrementAndGet();
+                purge = tombstonesOverHalf();
+            }
+            pending = changes.mark(slot);
+            event = changeFeed.completed(id);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Write-ahead log failed", e);
+        } finally {
+            stateLock.unlockRead(stamp);
+        }
+        changeFeed.publish(event); // Before anything else can throw
+        if (purge) {
+            purgeTombstones();
+        }
+        signalChanges(pending);
+        awaitJournal(wal, seq);
+    }
+
+    // Callers hold the read or write lock
+    private boolean tombstonesOverHalf() {
+        int tombstones = deadlineTombstones.get();
+        return tombstones >= MIN_TOMBSTONE_PURGE && tombstones > deadlineIndex.size() / 2;
+    }
+
+    // One O(n) pass per n/2 completions, so each completion pays O(1) for it
+    private void purgeTombstones() {
+        long stamp = stateLock.writeLock();
+        try {
+            if (tombstonesOverHalf()) { // Another completion may have purged already
+                deadlineIndex.removeIf(completedTasks::contains);
+                deadlineTombstones.set(0);
+            }
+        } finally {
+            stateLock.unlockWrite(stamp);
+        }
+    }
+
+    @LogExecution("Delaying a scheduled task")
+    public void delayTask(int id, int days) throws InvalidTaskException {
+        moveDeadline(id, day -> day + days);
+    }
+
+    // TaskStore.Scheduler: delay() or setDeadline() called on a stored DeadlineTask
+    private void reschedule(int id, LongUnaryOperator newDay) {
+        try {
+            moveDeadline(id, newDay);
+        } catch (InvalidTaskException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+
+    // Logged as the new deadline, published as a delay by the difference in days
+    private void moveDeadline(int id, LongUnaryOperator newDay) throws InvalidTaskException {
+        TaskJournal wal;
+        long seq = 0;
+        int pending;
+        TaskChangeFeed.Event event;
+        long stamp = stateLock.writeLock();
+        try {
+            int slot = materialize(id);
+            if (slot < 0) {
+                throw new InvalidTaskException("Task ID not found");
+            }
+            long day = tasks.getDeadlineDay(slot);
+            if (day == TaskStore.NO_DEADLINE) {
+                throw new InvalidTaskException("Task " + id + " has no deadline");
+            }
+            LocalDate deadline = LocalDate.ofEpochDay(newDay.applyAsLong(day)); // Range-checked before logging
+            int days = Math.toIntExact(deadline.toEpochDay() - day);
+            wal = journal;
+            if (wal != null) {
+                seq = wal.appendDeadline(id, deadline.toEpochDay());
+            }
+            applyDelay(slot, days);
+            pending = changes.mark(slot);
+            event = changeFeed.delayed(id, days, deadline);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Write-ahead log failed", e);
+        } finally {
+            stateLock.unlockWrite(stamp);
+        }
+        signalChanges(pending);
+        changeFeed.publish(event);
+        awaitJournal(wal, seq);
+    }
+
+    // Callers hold the write lock. A completed task's tombstone moves along, so the count stays right
+    private void applyDelay(int slot, int days) {
+        boolean indexed = unindexDeadline(slot);
+        tasks.delay(slot, days);
+        if (indexed) {
+            indexDeadline(slot);
+        }
+    }
+
+    @LogExecution("Finding overdue tasks")
+    public List<Task> getOverdueTasks() {
+        return getOverdueTasks(LocalDate.ofEpochDay(today()));
+    }
+
+    // Pending tasks whose deadline is before asOf, earliest deadline first
+    @LogExecution("Finding overdue tasks")
+    public List<Task> getOverdueTasks(LocalDate asOf) {
+        long stamp = readLockAll();
+        try {
+            return pendingTasksAt(deadlineIndex.overdue(asOf.toEpochDay()));
+        } finally {
+            stateLock.unlockRead(stamp);
+        }
+    }
+
+    // Up to n pending tasks due on or after from, earliest deadline first
+    @LogExecution("Finding next due tasks")
+    public List<Task> getNextDueTasks(int n, LocalDate from) {
+        long stamp = readLockAll();
+        try {
+            return pendingTasksAt(deadlineIndex.nextDue(n, from.toEpochDay(), completedTasks::contains));
+        } finally {
+            stateLock.unlockRead(stamp);
+        }
+    }
+
+    // Tasks whose title contains every word of the text (case-insensitive), in insertion order
+    @LogExecution("Searching task titles")
+    public List<Task> searchTitles(String words) {
+        long stamp = readLockAll();
+        try {
+            return tasksAt(titleIndex.search(words, false));
+        } finally {
+            stateLock.unlockRead(stamp);
+        }
+    }
+
+    // Type-ahead: like searchTitles, but the last word may be incomplete
+    @LogExecution("Type-ahead search of task titles")
+    public List<Task> searchTitlesAsTyped(String text) {
+        long stamp = readLockAll();
+        try {
+            return tasksAt(titleIndex.search(text, true));
+        } finally {
+            stateLock.unlockRead(stamp);
+        }
+    }
+
+    // Up to limit title words starting with prefix, for autocompletion
+    public List<String> suggestTitleWords(String prefix, int limit) {
+        long stamp = readLockAll();
+        try {
+            return titleIndex.suggest(prefix, limit);
+        } finally {
+            stateLock.unlockRead(stamp);
+        }
+    }
+
+    // Runs the query through the narrowest index that can answer one of its conditions
+    @LogExecution("Running an index-planned query")
+    public List<Task> query(TaskQuery query) {
+        long stamp = readLockAll();
+        try {
+            return execute(query, plan(query));
+        } finally {
+            stateLock.unlockRead(stamp);
+        }
+    }
+
+    // Describes how query() would run: the access path chosen, the alternatives
+    // considered with their candidate counts, and the conditions checked per candidate
+    @LogExecution("Explaining a query plan")
+    public String explain(TaskQuery query) {
+        long stamp = readLockAll();
+        try {
+            return plan(query).describe(query, tasks.size());
+        } finally {
+            stateLock.unlockRead(stamp);
+        }
+    }
+
+    // Callers hold the read lock
+    private QueryPlan plan(TaskQuery q) {
+        QueryPlan plan = new QueryPlan();
+        plan.consider(QueryPlan.Access.SCAN, tasks.size());
+        if (q.getMinId() != null) {
+            long width = (long) q.getMaxId() - q.getMinId() + 1;
+            if (width <= MAX_ID_LOOKUPS) {
+                plan.consider(QueryPlan.Access.ID, (int) width);
+            }
+        }
+        if (q.getPriorities() != null) {
+            int count = 0;
+            for (Priority p : q.getPriorities()) {
+                count += priorityIndex.get(p).size();
+            }
+            plan.consider(QueryPlan.Access.PRIORITY, count);
+        }
+        if (q.getCompleted() != null) {
+            int completed = completedTasks.size();
+            plan.consider(QueryPlan.Access.COMPLETION, q.getCompleted() ? completed : tasks.size() - completed);
+        }
+        // The deadline index holds pending tasks, plus tombstones that execute() filters out
+        if (q.hasDeadlineRange() && Boolean.FALSE.equals(q.getCompleted())) {
+            plan.consider(QueryPlan.Access.DEADLINE, deadlineIndex.countBetween(deadlineFromDay(q), deadlineToDay(q)));
+        }
+        // A title starting with the prefix has a first word starting with the prefix's first word
+        String titleTerm = titlePrefixTerm(q);
+        if (titleTerm != null) {
+            plan.consider(QueryPlan.Access.TITLE, titleIndex.countPrefix(titleTerm, plan.estimate));
+        }
+        plan.slots = candidates(q, plan.access);
+        return plan;
+    }
+
+    // Candidate slots in ascending order, or null for every slot
+    private IntList candidates(TaskQuery q, QueryPlan.Access access) {
+        IntList slots = new IntList();
+        switch (access) {
+            case ID:
+                for (long id = q.getMinId(); id <= q.getMaxId(); id++) {
+                    int slot = taskIndex.get((int) id);
+                    if (slot >= 0) {
+                        slots.add(slot);
+                    }
+                }
+                slots.sort();
+                return slots;
+            case PRIORITY:
+                // Buckets are each in slot order; merging keeps the result in slot order
+                for (Priority p : q.getPriorities()) {
+                    IntList bucket = priorityIndex.get(p);
+                    for (int i = 0; i < bucket.size(); i++) {
+                        slots.add(bucket.get(i));
+                    }
+                }
+                if (q.getPriorities().size() > 1) {
+                    slots.sort();
+                }
+                return slots;
+            case COMPLETION:
+                if (q.getCompleted()) {
+                    for (int slot = completedTasks.nextCompleted(0); slot >= 0; slot = completedTasks.nextCompleted(slot + 1)) {
+                        slots.add(slot);
+                    }
+                } else {
+                    for (int slot = completedTasks.nextPending(0); slot < tasks.size(); slot = completedTasks.nextPending(slot + 1)) {
+                        slots.add(slot);
+                    }
+                }
+                return slots;
+            case DEADLINE:
+                slots = deadlineIndex.between(deadlineFromDay(q), deadlineToDay(q));
+                slots.sort();
+                return slots;
+            case TITLE:
+                return titleIndex.matchPrefix(titlePrefixTerm(q));
+            default:
+                return null;
+        }
+    }
+
+    private List<Task> execute(TaskQuery q, QueryPlan plan) {
+        boolean sorted = q.getOrderBy() != TaskQuery.Order.SLOT;
+        // Unsorted results come in slot order, so the scan can stop once offset + limit matched
+        long wanted = sorted ? Long.MAX_VALUE : (long) q.getOffset() + q.getLimit();
+        IntList matches = new IntList();
+        int count = plan.slots != null ? plan.slots.size() : tasks.size();
+        for (int i = 0; i < count && matches.size() < wanted; i++) {
+            int slot = plan.slots != null ? plan.slots.get(i) : i;
+            if ((q.getCompleted() == null || completedTasks.contains(slot) == q.getCompleted())
+                    && q.matches(tasks, slot)) {
+                matches.add(slot);
+            }
+        }
+        int[] ordered = matches.toArray();
+        if (sorted) {
+            // Only the first offset + limit matches are ever ordered; ties stay in slot order
+            TopKSlots top = new TopKSlots((int) Math.min((long) q.getOffset() + q.getLimit(), matches.size()),
+                    slotOrder(q.getOrderBy()));
+            for (int slot : ordered) {
+                top.offer(slot);
+            }
+            ordered = top.drainSorted();
+        }
+        int from = Math.min(q.getOffset(), ordered.length);
+        int to = (int) Math.min((long) from + q.getLimit(), ordered.length);
+        return tasksAt(Arrays.copyOfRange(ordered, from, to));
+    }
+
+    // Total order over slots (ties broken by slot, i.e. insertion order); callers hold the read lock
+    private TopKSlots.SlotComparator slotOrder(TaskQuery.Order order) {
+        switch (order) {
+            case ID:
+                return (a, b) -> {
+                    int c = Integer.compare(tasks.getId(a), tasks.getId(b));
+                    return c != 0 ? c : Integer.compare(a, b);
+                };
+            case TITLE:
+                List<String> keys = titleKeys();
+                return (a, b) -> {
+                    int c = compareKeys(keys.get(a), keys.get(b));
+                    return c != 0 ? c : Integer.compare(a, b);
+                };
+            case PRIORITY:
+                return (a, b) -> {
+                    int c = Integer.compare(priorityRank(tasks.getPriority(a)), priorityRank(tasks.getPriority(b)));
+                    return c != 0 ? c : Integer.compare(a, b);
+                };
+            case DEADLINE:
+                return (a, b) -> {
+                    int c = Long.compare(deadlineRank(tasks.getDeadlineDay(a)), deadlineRank(tasks.getDeadlineDay(b)));
+                    return c != 0 ? c : Integer.compare(a, b);
+                };
+            default:
+                return Integer::compare;
+        }
+    }
+
+    // Built on first use, so boards never sorted by title keep no per-task key objects.
+    // Callers hold the read lock; writers then extend the keys in insertTask.
+    private List<String> titleKeys() {
+        List<String> keys = titleKeys;
+        if (keys == null) {
+            synchronized (titleKeysLock) {
+                keys = titleKeys;
+                if (keys == null) {
+                    keys = new ArrayList<>(tasks.size());
+                    for (int slot = 0; slot < tasks.size(); slot++) {
+                        keys.add(collationKey(tasks.getTitle(slot)));
+                    }
+                    titleKeys = keys;
+                }
+            }
+        }
+        return keys;
+    }
+
+    // Case-folded once per title (the way compareToIgnoreCase folds), so sorting compares plain strings
+    private static String collationKey(String title) {
+        if (title == null) {
+            return null;
+        }
+        String folded = TitleIndex.fold(title);
+        return folded.equals(title) ? title : folded;
+    }
+
+    // Null titles sort last
+    private static int compareKeys(String key1, String key2) {
+        if (key1 == null || key2 == null) {
+            return key1 == null ? (key2 == null ? 0 : 1) : -1;
+        }
+        return key1.compareTo(key2);
+    }
+
+    private static int priorityRank(Priority priority) {
+        return priority != null ? priority.ordinal() : Integer.MAX_VALUE;
+    }
+
+    // Tasks without a deadline sort last
+    private static long deadlineRank(long deadlineDay) {
+        return deadlineDay != TaskStore.NO_DEADLINE ? deadlineDay : Long.MAX_VALUE;
+    }
+
+    // First word of the query's title prefix, or null if the prefix does not start with one
+    private static String titlePrefixTerm(TaskQuery q) {
+        String prefix = q.getTitlePrefix();
+        if (prefix == null || prefix.isEmpty() || !Character.isLetterOrDigit(prefix.codePointAt(0))) {
+            return null;
+        }
+        List<String> terms = TitleIndex.tokenize(prefix);
+        return terms.get(0);
+    }
+
+    private static long deadlineFromDay(TaskQuery q) {
+        return q.getDeadlineFrom() != null ? q.getDeadlineFrom().toEpochDay() : Long.MIN_VALUE;
+    }
+
+    private static long deadlineToDay(TaskQuery q) {
+        return q.getDeadlineTo() != null ? q.getDeadlineTo().toEpochDay() : Long.MAX_VALUE;
+    }
+
+    // Access path chosen for a TaskQuery: the candidate source with the fewest candidates
+    private static class QueryPlan {
+        enum Access {
+            SCAN("full scan"),
+            ID("IdIndex point lookups"),
+            PRIORITY("priority index"),
+            COMPLETION("completion index"),
+            DEADLINE("deadline index"),
+            TITLE("title index");
 
-        if (!exists) {
-            throw new InvalidTaskException("Task ID not found");
+            final String label;
+
+            Access(String label) {
+                this.label = label;
+            }
         }
 
-        if (completedTasks.contains(id)) {
-            throw new InvalidTaskException("Task already completed");
+        Access access;
+        int estimate = Integer.MAX_VALUE;
+        IntList slots;
+        private final Map<Access, Integer> considered = new EnumMap<>(Access.class);
+
+        void consider(Access candidate, int count) {
+            considered.put(candidate, count);
+            if (count < estimate) {
+                access = candidate;
+                estimate = count;
+            }
         }
 
-        completedTasks.add(id);
+        String describe(TaskQuery q, int taskCount) {
+            StringBuilder sb = new StringBuilder();
+            sb.append("Query: ").append(q).append('\n');
+            sb.append("Access path: ").append(access.label).append(" (")
+                    .append(slots != null ? slots.size() : taskCount).append(" candidate(s) of ")
+                    .append(taskCount).append(" tasks)\n");
+            sb.append("Considered:");
+            considered.forEach((a, n) -> sb.append(' ').append(a.label).append('=').append(n).append(';'));
+            sb.setLength(sb.length() - 1);
+            sb.append('\n');
+
+            // Conditions the access path does not already guarantee
+            List<String> residual = new ArrayList<>();
+            if (q.getMinId() != null && access != Access.ID) {
+                residual.add("id range");
+            }
+            if (q.getPriorities() != null && access != Access.PRIORITY) {
+                residual.add("priority");
+            }
+            if (q.getCompleted() != null && access != Access.COMPLETION && access != Access.DEADLINE) {
+                residual.add("completion");
+            }
+            if (q.hasDeadlineRange() && access != Access.DEADLINE) {
+                residual.add("deadline range");
+            }
+            if (q.getTitlePrefix() != null) {
+                // The title index finds titles containing a word with the prefix; the position is still checked
+                residual.add(access == Access.TITLE ? "title prefix position" : "title prefix");
+            }
+            if (q.getFilter() != null) {
+                residual.add("custom filter");
+            }
+            sb.append("Residual checks: ").append(residual.isEmpty() ? "none" : String.join(", ", residual)).append('\n');
+            if (q.getOrderBy() != TaskQuery.Order.SLOT) {
+                sb.append("Sort: ").append(q.getOrderBy()).append(" (after filtering)\n");
+            } else if (q.getOffset() > 0 || q.getLimit() != Integer.MAX_VALUE) {
+                sb.append("Early exit after ").append((long) q.getOffset() + q.getLimit()).append(" match(es)\n");
+            }
+            return sb.toString();
+        }
     }
 
     @Deprecated
     public void showAll() {
-        tasks.forEach(System.out::println);
+        displayTasks();
     }
 
     @LogExecution("Displaying all tasks")
     public void displayTasks() {
-        tasks.forEach(System.out::println);
+        long today = today();
+        long stamp = readLockAll();
+        try {
+            StringBuilder out = new StringBuilder(8192);
+            for (int slot = 0; slot < tasks.size(); slot++) {
+                appendLine(out, tasks.get(slot), today);
+            }
+            System.out.print(out);
+        } finally {
+            stateLock.unlockRead(stamp);
+        }
     }
 
     @LogExecution("Displaying completed tasks")
     public void showCompleted() {
-        tasks.stream()
-                .filter(t -> completedTasks.contains(t.getId()))
-                .forEach(System.out::println);
+        long today = today();
+        long stamp = readLockAll();
+        try {
+            // Walk only the set bits of the completion index
+            StringBuilder out = new StringBuilder(8192);
+            for (int slot = completedTasks.nextCompleted(0); slot >= 0; slot = completedTasks.nextCompleted(slot + 1)) {
+                appendLine(out, tasks.get(slot), today);
+            }
+            System.out.print(out);
+        } finally {
+            stateLock.unlockRead(stamp);
+        }
     }
 
     @LogExecution("Displaying pending tasks")
     public void showPending() {
-        tasks.stream()
-                .filter(t -> !completedTasks.contains(t.getId()))
-                .forEach(System.out::println);
+        long today = today();
+        long stamp = readLockAll();
+        try {
+            StringBuilder out = new StringBuilder(8192);
+            for (int slot = completedTasks.nextPending(0); slot < tasks.size(); slot = completedTasks.nextPending(slot + 1)) {
+                appendLine(out, tasks.get(slot), today);
+            }
+            System.out.print(out);
+        } finally {
+            stateLock.unlockRead(stamp);
+        }
     }
 
     @LogExecution("Grouping tasks by priority")
     public void groupByPriority() {
-        Map<Priority, List<Task>> map = tasks.stream().collect(Collectors.groupingBy(Task::getPriority));
-        map.forEach((k, v) -> System.out.println(k + " " + v));
+        long stamp = readLockAll();
+        try {
+            // Buckets are maintained on add, so only the tasks themselves are visited
+            priorityIndex.forEach((k, bucket) -> {
+                if (!bucket.isEmpty()) {
+                    System.out.println(k + " " + tasksAt(bucket));
+                }
+            });
+            if (!unprioritized.isEmpty()) {
+                System.out.println("null " + tasksAt(unprioritized));
+            }
+        } finally {
+            stateLock.unlockRead(stamp);
+        }
     }
 
     @LogExecution("Displaying summary using Local Inner Class")
@@ -80,7 +812,8 @@ public class TaskService {
         // Local Inner Class
         class TaskSummary {
             void print() {
-                long highPriorityCount = tasks.stream().filter(t -> t.getPriority() == Priority.HIGH).count();
+                loadAllMapped();
+                long highPriorityCount = readOptimistic(() -> priorityIndex.get(Priority.HIGH).size());
                 System.out.println("TaskSummary [Local Inner Class]: " + highPriorityCount + " High Priority Tasks.");
             }
         }
@@ -91,130 +824,1067 @@ public class TaskService {
 
     @LogExecution("Sorting tasks by title using Anonymous Inner Class")
     public void sortTasksByTitle() {
-        List<Task> sortedTasks = new ArrayList<>(tasks);
-
-        // Anonymous Inner Class
-        sortedTasks.sort(new Comparator<Task>() {
-            @Override
-            public int compare(Task t1, Task t2) {
-                return t1.getTitle().compareToIgnoreCase(t2.getTitle());
+        List<Task> sortedTasks;
+        long stamp = readLockAll();
+        try {
+            // Anonymous Inner Class: compares the precomputed case-folded keys, so no
+            // title is re-folded per comparison; ties keep insertion order
+            List<String> keys = titleKeys();
+            TopKSlots byTitle = new TopKSlots(tasks.size(), new TopKSlots.SlotComparator() {
+                @Override
+                public int compare(int slot1, int slot2) {
+                    int c = compareKeys(keys.get(slot1), keys.get(slot2));
+                    return c != 0 ? c : Integer.compare(slot1, slot2);
+                }
+            });
+            for (int slot = 0; slot < tasks.size(); slot++) {
+                byTitle.offer(slot);
             }
-        });
+            sortedTasks = tasksAt(byTitle.drainSorted());
+        } finally {
+            stateLock.unlockRead(stamp);
+        }
 
         System.out.println("Tasks sorted by title [Anonymous Inner Class]:");
         sortedTasks.forEach(System.out::println);
     }
 
+    // Page (0-based) of the tasks in the given order. Only the first (page + 1) * pageSize
+    // tasks are kept in a bounded heap while scanning; the list is never sorted as a whole.
+    @LogExecution("Getting a sorted page of tasks")
+    public List<Task> getSortedPage(TaskQuery.Order order, int page, int pageSize) {
+        if (page < 0 || pageSize < 1) {
+            throw new IllegalArgumentException("page must be >= 0 and pageSize >= 1");
+        }
+        long stamp = readLockAll();
+        try {
+            long from = (long) page * pageSize;
+            if (from >= tasks.size()) {
+                return new ArrayList<>();
+            }
+            TopKSlots top = new TopKSlots((int) Math.min(from + pageSize, tasks.size()), slotOrder(order));
+            for (int slot = 0; slot < tasks.size(); slot++) {
+                top.offer(slot);
+            }
+            int[] sorted = top.drainSorted();
+            return tasksAt(Arrays.copyOfRange(sorted, (int) from, sorted.length));
+        } finally {
+            stateLock.unlockRead(stamp);
+        }
+    }
+
     @LogExecution("Filtering tasks with custom Predicate")
     public List<Task> filterTasks(Predicate<Task> predicate) {
-        // Stream pipeline: filtering
-        return tasks.stream()
-                .filter(predicate)
-                .collect(Collectors.toList());
+        long stamp = readLockAll();
+        try {
+            // Stream pipeline: filtering
+            return tasks.asList().stream()
+                    .filter(predicate)
+                    .collect(Collectors.toList());
+        } finally {
+            stateLock.unlockRead(stamp);
+        }
     }
 
     @LogExecution("Mapping tasks using custom Function")
     public <R> List<R> mapTasks(Function<Task, R> function) {
-        // Stream pipeline: mapping
-        return tasks.stream()
-                .map(function)
-                .collect(Collectors.toList());
+        long stamp = readLockAll();
+        try {
+            // Stream pipeline: mapping
+            return tasks.asList().stream()
+                    .map(function)
+                    .collect(Collectors.toList());
+        } finally {
+            stateLock.unlockRead(stamp);
+        }
     }
 
     @LogExecution("Applying an action to all tasks using Consumer")
     public void processTasks(Consumer<Task> consumer) {
-        // Utilizing Consumer directly or via stream forEach
-        tasks.stream().forEach(consumer); // Demonstrating Stream + Consumer
+        long stamp = readLockAll();
+        try {
+            // Utilizing Consumer directly or via stream forEach
+            tasks.asList().stream().forEach(consumer); // Demonstrating Stream + Consumer
+        } finally {
+            stateLock.unlockRead(stamp);
+        }
+    }
+
+    // Order-preserving parallel filterTasks on the query engine; the predicate must be thread-safe
+    @LogExecution("Filtering tasks in parallel")
+    public List<Task> filterTasksParallel(Predicate<Task> predicate) {
+        return queryParallel(predicate, Function.identity());
+    }
+
+    // Order-preserving parallel mapTasks on the query engine; the function must be thread-safe
+    @LogExecution("Mapping tasks in parallel")
+    public <R> List<R> mapTasksParallel(Function<Task, R> function) {
+        return queryParallel(t -> true, function);
+    }
+
+    // Parallel processTasks; tasks are visited in no particular order
+    @LogExecution("Applying an action to all tasks in parallel")
+    public void processTasksParallel(Consumer<Task> consumer) {
+        TaskQueryEngine engine = queryEngine;
+        long stamp = readLockAll();
+        try {
+            // Workers only read; the read lock held here keeps writers out until they finish
+            engine.forEach(tasks.size(), tasks::get, consumer);
+        } finally {
+            stateLock.unlockRead(stamp);
+        }
+    }
+
+    private <R> List<R> queryParallel(Predicate<Task> predicate, Function<Task, R> function) {
+        TaskQueryEngine engine = queryEngine;
+        long stamp = readLockAll();
+        try {
+            return engine.filterMap(tasks.size(), tasks::get, predicate, function);
+        } finally {
+            stateLock.unlockRead(stamp);
+        }
+    }
+
+    // Replaces the engine behind the *Parallel queries; the caller owns (and closes) it
+    public void setQueryEngine(TaskQueryEngine engine) {
+        queryEngine = Objects.requireNonNull(engine);
     }
 
     @LogExecution("Getting task by ID or providing default using Supplier")
     public Task getTaskOrDefault(int id, Supplier<Task> defaultSupplier) {
-        // Stream pipeline: filtering and using Supplier as fallback
-        return tasks.stream()
-                .filter(t -> t.getId() == id)
-                .findFirst()
-                .orElseGet(defaultSupplier);
+        // O(1) lookup through the primary index, Supplier as fallback
+        Task task = readOptimistic(() -> {
+            int slot = taskIndex.get(id);
+            return slot >= 0 ? tasks.get(slot) : null;
+        });
+        if (task == null && mapped != null) {
+            task = mappedLookup(id);
+        }
+        return task != null ? task : defaultSupplier.get();
     }
 
-    @LogExecution("Reducing tasks to a single string")
+    @LogExecution("Joining task titles into a single string")
     public String getCombinedTaskTitles() {
-        // Stream pipeline: mapping and reducing
-        return tasks.stream()
-                .map(Task::getTitle)
-                .reduce((t1, t2) -> t1 + ", " + t2)
-                .orElse("No tasks available");
+        long stamp = readLockAll();
+        try {
+            if (tasks.isEmpty()) {
+                return "No tasks available";
+            }
+            return joinTitles(0, tasks.size(), new StringBuilder(joinedLength(0, tasks.size()))).toString();
+        } finally {
+            stateLock.unlockRead(stamp);
+        }
+    }
+
+    // The first limit titles, then "(+N more)" if any were left out
+    @LogExecution("Joining the first N task titles")
+    public String getCombinedTaskTitles(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("limit must be >= 0");
+        }
+        long stamp = readLockAll();
+        try {
+            if (tasks.isEmpty()) {
+                return "No tasks available";
+            }
+            int shown = Math.min(limit, tasks.size());
+            StringBuilder sb = joinTitles(0, shown, new StringBuilder(joinedLength(0, shown) + 24));
+            if (shown < tasks.size()) {
+                sb.append(shown > 0 ? " (+" : "(+").append(tasks.size() - shown).append(" more)");
+            }
+            return sb.toString();
+        } finally {
+            stateLock.unlockRead(stamp);
+        }
+    }
+
+    // Same result as getCombinedTaskTitles(). Ranges of titles are measured in parallel,
+    // then each range copies its titles straight to its offset in one shared array.
+    @LogExecution("Joining task titles in parallel")
+    public String getCombinedTaskTitlesParallel() {
+        long stamp = readLockAll();
+        try {
+            int size = tasks.size();
+            if (size == 0) {
+                return "No tasks available";
+            }
+            int chunks = (size + TITLE_CHUNK - 1) / TITLE_CHUNK;
+            // Workers only read; the read lock held here keeps writers out until they finish
+            int[] offsets = new int[chunks + 1];
+            IntStream.range(0, chunks).parallel()
+                    .forEach(c -> offsets[c + 1] = joinedLength(c * TITLE_CHUNK, Math.min(size, (c + 1) * TITLE_CHUNK)) + 2);
+            for (int c = 0; c < chunks; c++) {
+                offsets[c + 1] += offsets[c];
+            }
+            char[] joined = new char[offsets[chunks] - 2];
+            IntStream.range(0, chunks).parallel().forEach(c -> {
+                int pos = offsets[c];
+                for (int i = c * TITLE_CHUNK, to = Math.min(size, i + TITLE_CHUNK); i < to; i++) {
+                    String title = String.valueOf(tasks.getTitle(i));
+                    title.getChars(0, title.length(), joined, pos);
+                    pos += title.length();
+                    if (i < size - 1) {
+                        joined[pos++] = ',';
+                        joined[pos++] = ' ';
+                    }
+                }
+            });
+            return new String(joined);
+        } finally {
+            stateLock.unlockRead(stamp);
+        }
+    }
+
+    // Callers hold the read lock
+    private StringBuilder joinTitles(int from, int to, StringBuilder sb) {
+        for (int i = from; i < to; i++) {
+            if (i > from) {
+                sb.append(", ");
+            }
+            sb.append(tasks.getTitle(i));
+        }
+        return sb;
+    }
+
+    // Exact length of joinTitles(from, to), so the builder never grows
+    private int joinedLength(int from, int to) {
+        long length = to > from ? 2L * (to - from - 1) : 0;
+        for (int i = from; i < to; i++) {
+            String title = tasks.getTitle(i);
+            length += title != null ? title.length() : 4; // "null"
+        }
+        return (int) Math.min(length, Integer.MAX_VALUE - 8);
     }
 
-    @SuppressWarnings("unchecked")
     @LogExecution("Loading tasks from file")
     public void loadFromFile(String filename) {
-        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(filename))) {
-            tasks = (List<Task>) ois.readObject();
-            completedTasks = (Set<Integer>) ois.readObject();
-            System.out.println("Tasks and completion states loaded successfully from " + filename);
-        } catch (FileNotFoundException e) {
+        loadFromFile(filename, false);
+    }
+
+    // With mapped set, a version 2 snapshot is memory-mapped and returns almost at once;
+    // tasks are decoded as they are used (see the class comment). Legacy and version 1
+    // files cannot be mapped and are loaded fully.
+    @LogExecution("Loading tasks from file")
+    public void loadFromFile(String filename, boolean mapped) {
+        loadFromFile(filename, mapped, backupPath(filename));
+    }
+
+    // Also restores the changes a BackupDaemon wrote to backupFile (null: none) since
+    // the snapshot was saved. Saving the snapshot truncates the backup; a backup last
+    // written before the snapshot (the daemon was not running) is ignored.
+    @LogExecution("Loading tasks from file")
+    public void loadFromFile(String filename, boolean mapped, String backupFile) {
+        TaskSnapshot snapshot = null;
+        MappedTaskSnapshot mappedSnapshot = null;
+        try {
+            if (mapped && TaskSnapshot.isSnapshot(filename)) {
+                try {
+                    mappedSnapshot = MappedTaskSnapshot.open(filename);
+                } catch (IOException e) {
+                    System.out.println("Cannot map " + filename + ", loading it fully: " + e.getMessage());
+                }
+            }
+            if (mappedSnapshot == null) {
+                // Binary snapshot, or a legacy Java-serialized tasks.ser
+                snapshot = TaskSnapshot.load(filename);
+            }
+        } catch (FileNotFoundException | NoSuchFileException e) {
             System.out.println("Save file not found. Starting fresh.");
-        } catch (IOException | ClassNotFoundException e) {
+        } catch (IOException e) {
             System.out.println("Error loading tasks: " + e.getMessage());
+            return;
+        }
+
+        Replay restore = new Replay();
+        Replay replay = new Replay();
+        TaskChangeFeed.Event event = null;
+        long stamp = stateLock.writeLock();
+        try {
+            if (snapshot != null) {
+                rebuildIndexes(snapshot.getTasks(), snapshot.getCompleted());
+                System.out.println("Tasks and completion states loaded successfully from " + filename);
+            } else if (mappedSnapshot != null) {
+                rebuildIndexes(new ArrayList<>(), new CompletionSet());
+                this.mapped = mappedSnapshot;
+                System.out.println(mappedSnapshot.size() + " task(s) mapped from " + filename + "; decoded on first use");
+            }
+            // Changes since the snapshot: the backup's latest task states, then the
+            // log's mutations, which are as new or newer (the backup lags behind)
+            if (backupFile != null && !modifiedBefore(backupFile, filename)) {
+                try {
+                    TaskJournal.replay(backupFile, restore);
+                } catch (IOException e) {
+                    System.out.println("Error restoring backup: " + e.getMessage());
+                }
+            }
+            TaskJournal.replay(journalPath(filename), replay);
+        } catch (IOException e) {
+            System.out.println("Error replaying write-ahead log: " + e.getMessage());
+        } finally {
+            if (snapshot != null || restore.count > 0 || replay.count > 0) {
+                event = changeFeed.reloaded();
+            }
+            stateLock.unlockWrite(stamp);
+        }
+        if (event != null) {
+            changeFeed.publish(event);
+        }
+        if (restore.count > 0) {
+            System.out.println("Restored " + restore.count + " task(s) from backup " + backupFile);
+        }
+        if (replay.count > 0) {
+            System.out.println("Replayed " + replay.count + " write-ahead log entries from " + journalPath(filename));
+        }
+    }
+
+    // Applies write-ahead log and backup entries on top of a loaded snapshot. All but
+    // the legacy DELAY entry are idempotent: those the snapshot already holds change nothing.
+    // Called under the write lock.
+    private class Replay implements TaskJournal.Handler {
+        int count;
+
+        @Override
+        public void add(Task task) {
+            if (!exists(task.getId())) {
+                insertTask(task);
+            }
+            count++;
+        }
+
+        @Override
+        public void complete(int id) {
+            int slot = materialize(id);
+            if (slot >= 0 && completedTasks.add(slot)) {
+                unindexDeadline(slot);
+            }
+            count++;
+        }
+
+        @Override
+        public void delay(int id, int days) {
+            int slot = materialize(id);
+            if (slot >= 0 && tasks.getDeadlineDay(slot) != TaskStore.NO_DEADLINE) {
+                applyDelay(slot, days);
+            }
+            count++;
+        }
+
+        // A snapshot that already holds the new deadline is left as it is
+        @Override
+        public void deadline(int id, long epochDay) {
+            setDeadlineDay(materialize(id), epochDay);
+            count++;
+        }
+
+        // A backup entry: the task's whole state. Only the deadline and completion can
+        // change after a task is added, so an existing task takes just those.
+        @Override
+        public void put(Task task, boolean completed) {
+            int slot = materialize(task.getId());
+            if (slot < 0) {
+                slot = insertTask(task);
+            } else if (task instanceof DeadlineTask) {
+                setDeadlineDay(slot, ((DeadlineTask) task).getDeadline().toEpochDay());
+            }
+            if (completed && completedTasks.add(slot)) {
+                unindexDeadline(slot);
+            }
+            count++;
+        }
+
+        private void setDeadlineDay(int slot, long epochDay) {
+            long day = slot >= 0 ? tasks.getDeadlineDay(slot) : TaskStore.NO_DEADLINE;
+            if (day != TaskStore.NO_DEADLINE && day != epochDay) {
+                applyDelay(slot, Math.toIntExact(epochDay - day));
+            }
+        }
+    }
+
+    // Starts logging every mutation to <filename>.wal; saveToFile(filename) compacts the log
+    @LogExecution("Opening write-ahead log")
+    public void openWriteAheadLog(String filename) throws IOException {
+        TaskJournal opened = TaskJournal.open(journalPath(filename));
+        TaskJournal previous;
+        long stamp = stateLock.writeLock();
+        try {
+            previous = journal;
+            journal = opened;
+            journalSnapshot = filename;
+        } finally {
+            stateLock.unlockWrite(stamp);
+        }
+        if (previous != null) {
+            previous.close();
+        }
+    }
+
+    public void closeWriteAheadLog() throws IOException {
+        TaskJournal previous;
+        long stamp = stateLock.writeLock();
+        try {
+            previous = journal;
+            journal = null;
+            journalSnapshot = null;
+        } finally {
+            stateLock.unlockWrite(stamp);
+        }
+        if (previous != null) {
+            previous.close();
+        }
+    }
+
+    // Log size in bytes after which a mutation triggers compaction into the snapshot
+    public void setCompactionThreshold(long bytes) {
+        compactionThreshold = bytes;
+    }
+
+    static String journalPath(String filename) {
+        return filename + ".wal";
+    }
+
+    // Where BackupDaemon keeps the changes since the snapshot in filename by default
+    static String backupPath(String filename) {
+        return filename + ".backup";
+    }
+
+    // True if file was last written before other was: a backup left over from before the
+    // last save holds nothing newer than the snapshot. False if either file is missing.
+    static boolean modifiedBefore(String file, String other) {
+        try {
+            return Files.getLastModifiedTime(Paths.get(file)).compareTo(Files.getLastModifiedTime(Paths.get(other))) < 0;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    // Group commit: wait (outside the state lock) until the entry is durable
+    private void awaitJournal(TaskJournal wal, long seq) {
+        if (wal == null) {
+            return;
+        }
+        try {
+            wal.awaitDurable(seq);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Write-ahead log failed", e);
+        }
+        if (wal.size() >= compactionThreshold) {
+            compact(wal);
+        }
+    }
+
+    private void compact(TaskJournal wal) {
+        long stamp = stateLock.writeLock();
+        try {
+            // Another caller may have compacted or swapped the log already
+            if (journal != wal || wal.size() < compactionThreshold) {
+                return;
+            }
+            materializeAll();
+            TaskSnapshot.write(journalSnapshot, tasks.asList(), completedTasks);
+            wal.truncate();
+            notifySnapshotSaved(journalSnapshot);
+        } catch (IOException e) {
+            System.out.println("Error compacting write-ahead log: " + e.getMessage());
+        } finally {
+            stateLock.unlockWrite(stamp);
+        }
+    }
+
+    // Rebuilds tasks and all indexes; older save files may hold duplicate IDs, first one wins
+    private void rebuildIndexes(List<Task> loaded, CompletionSet completion) {
+        if (mapped != null) {
+            try {
+                mapped.close();
+            } catch (IOException e) {
+                // Read-only mapping: nothing is lost
+            }
+            mapped = null;
+        }
+        tasks.setScheduler(null); // Tasks handed out before the reload now change only themselves
+        tasks = tasks.newEmpty(loaded.size());
+        tasks.setScheduler(scheduler);
+        taskIndex = new IdIndex(loaded.size());
+        priorityIndex = newPriorityIndex();
+        unprioritized = new IntList();
+        completedTasks = new CompletionSet(loaded.size());
+        deadlineIndex.clear();
+        deadlineTombstones.set(0);
+        titleIndex.clear();
+        titleKeys = null;
+        changes.reset(loaded.size()); // Slots changed meaning; the loaded state is already on disk
+        int skipped = 0;
+        for (int i = 0; i < loaded.size(); i++) {
+            Task t = loaded.get(i);
+            if (taskIndex.putIfAbsent(t.getId(), tasks.size()) >= 0) {
+                skipped++;
+                continue;
+            }
+            int slot = tasks.add(t);
+            priorityBucket(t.getPriority()).add(slot);
+            titleIndex.add(slot, t.getTitle());
+            if (completion.contains(i)) {
+                completedTasks.add(slot);
+            } else {
+                indexDeadline(slot);
+            }
+        }
+        if (skipped > 0) {
+            System.out.println("Skipped " + skipped + " task(s) with duplicate IDs.");
+        }
+    }
+
+    // Bulk operations read the clock once and compare epoch days per task
+    private long today() {
+        return LocalDate.now(clock).toEpochDay();
+    }
+
+    // Prints through one builder, flushed every 8 KB instead of once per task
+    private static void appendLine(StringBuilder out, Task task, long today) {
+        task.appendTo(out, today);
+        out.append(System.lineSeparator());
+        if (out.length() >= 8192) {
+            System.out.print(out);
+            out.setLength(0);
+        }
+    }
+
+    // Tasks without a deadline are not in the deadline index
+    private void indexDeadline(int slot) {
+        long day = tasks.getDeadlineDay(slot);
+        if (day != TaskStore.NO_DEADLINE) {
+            deadlineIndex.add(slot, day);
+        }
+    }
+
+    private boolean unindexDeadline(int slot) {
+        long day = tasks.getDeadlineDay(slot);
+        return day != TaskStore.NO_DEADLINE && deadlineIndex.remove(slot, day);
+    }
+
+    private IntList priorityBucket(Priority priority) {
+        return priority != null ? priorityIndex.get(priority) : unprioritized;
+    }
+
+    private static EnumMap<Priority, IntList> newPriorityIndex() {
+        EnumMap<Priority, IntList> index = new EnumMap<>(Priority.class);
+        for (Priority p : Priority.values()) {
+            index.put(p, new IntList());
+        }
+        return index;
+    }
+
+    private boolean exists(int id) {
+        MappedTaskSnapshot snapshot = mapped;
+        return taskIndex.contains(id) || (snapshot != null && snapshot.contains(id));
+    }
+
+    private static Task mappedTask(MappedTaskSnapshot snapshot, int id) {
+        try {
+            return snapshot.get(id);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error reading mapped snapshot", e);
+        }
+    }
+
+    // Mapped read mode: a plain task is served from the mapping. A Schedulable one is moved
+    // into the store first, so that delay() on the returned task reaches the service.
+    private Task mappedLookup(int id) {
+        MappedTaskSnapshot snapshot = mapped;
+        Task task = snapshot != null ? mappedTask(snapshot, id) : null;
+        if (snapshot != null && !(task instanceof Schedulable)) {
+            return task;
+        }
+        long stamp = stateLock.writeLock();
+        try {
+            int slot = materialize(id);
+            return slot >= 0 ? tasks.get(slot) : null;
+        } finally {
+            stateLock.unlockWrite(stamp);
+        }
+    }
+
+    // Callers hold the write lock. In mapped read mode, moves the task from the snapshot
+    // into the store so it can be changed. Returns its slot, or -1 if there is no such task.
+    private int materialize(int id) {
+        int slot = taskIndex.get(id);
+        MappedTaskSnapshot snapshot = mapped;
+        if (slot >= 0 || snapshot == null || !snapshot.contains(id)) {
+            return slot;
+        }
+        return insertMapped(mappedTask(snapshot, id), snapshot.isCompleted(id));
+    }
+
+    // markCompleted only takes the read lock, so it moves its task out of the snapshot first
+    private void materializeForUpdate(int id) {
+        if (mapped == null || readOptimistic(() -> taskIndex.contains(id))) {
+            return;
+        }
+        long stamp = stateLock.writeLock();
+        try {
+            materialize(id);
+        } finally {
+            stateLock.unlockWrite(stamp);
+        }
+    }
+
+    // Callers hold the write lock. Ends mapped read mode: moves every task not moved yet
+    // into the store, in file order, after the ones already there
+    private void materializeAll() {
+        MappedTaskSnapshot snapshot = mapped;
+        if (snapshot == null) {
+            return;
+        }
+        try {
+            taskIndex.ensureCapacity(tasks.size() + snapshot.size());
+            snapshot.forEach(t -> {
+                if (!taskIndex.contains(t.getId())) {
+                    insertMapped(t, snapshot.isCompleted(t.getId()));
+                }
+            });
+            snapshot.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error reading mapped snapshot", e);
+        }
+        mapped = null;
+    }
+
+    // Unchanged since it was saved, so it is neither logged, backed up nor published
+    private int insertMapped(Task task, boolean completed) {
+        int slot = insertTask(task);
+        if (completed) {
+            completedTasks.add(slot);
+            unindexDeadline(slot);
+        }
+        return slot;
+    }
+
+    // Read lock for scans, which need every task in the store
+    private long readLockAll() {
+        long stamp = stateLock.readLock();
+        while (mapped != null) {
+            stateLock.unlockRead(stamp);
+            stamp = stateLock.writeLock();
+            try {
+                materializeAll();
+            } catch (RuntimeException e) {
+                stateLock.unlockWrite(stamp);
+                throw e;
+            }
+            stamp = stateLock.tryConvertToReadLock(stamp);
+        }
+        return stamp;
+    }
+
+    // For the optimistic counts, which would otherwise miss the mapped tasks
+    private void loadAllMapped() {
+        if (mapped != null) {
+            stateLock.unlockRead(readLockAll());
+        }
+    }
+
+    // Runs a short read without locking; retries under the read lock if a writer got in
+    private <R> R readOptimistic(Supplier<R> reader) {
+        long stamp = stateLock.tryOptimisticRead();
+        if (stamp != 0L) {
+            try {
+                R result = reader.get();
+                if (stateLock.validate(stamp)) {
+                    return result;
+                }
+            } catch (RuntimeException e) {
+                // Torn read while a writer was active; fall through to the locked path
+                if (stateLock.validate(stamp)) {
+                    throw e;
+                }
+            }
+        }
+        stamp = stateLock.readLock();
+        try {
+            return reader.get();
+        } finally {
+            stateLock.unlockRead(stamp);
+        }
+    }
+
+    // Skips the tombstones of completed tasks in the deadline index
+    private List<Task> pendingTasksAt(IntList slots) {
+        List<Task> result = new ArrayList<>(slots.size());
+        for (int i = 0; i < slots.size(); i++) {
+            if (!completedTasks.contains(slots.get(i))) {
+                result.add(tasks.get(slots.get(i)));
+            }
+        }
+        return result;
+    }
+
+    private List<Task> tasksAt(int[] slots) {
+        List<Task> result = new ArrayList<>(slots.length);
+        for (int slot : slots) {
+            result.add(tasks.get(slot));
+        }
+        return result;
+    }
+
+    private List<Task> tasksAt(IntList slots) {
+        List<Task> result = new ArrayList<>(slots.size());
+        for (int i = 0; i < slots.size(); i++) {
+            result.add(tasks.get(slots.get(i)));
         }
+        return result;
     }
 
     @LogExecution("Saving tasks to file")
     public void saveToFile(String filename) {
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(filename))) {
-            oos.writeObject(tasks);
-            oos.writeObject(completedTasks);
+        long stamp = readLockAll();
+        try {
+            boolean compacting = journal != null && filename.equals(journalSnapshot);
+            if (compacting || !snapshotListeners.isEmpty()) {
+                // Block mutations so none slip in between the snapshot and truncating the log or backup
+                long writeStamp = stateLock.tryConvertToWriteLock(stamp);
+                if (writeStamp == 0L) {
+                    stateLock.unlockRead(stamp);
+                    writeStamp = stateLock.writeLock();
+                }
+                stamp = writeStamp;
+                compacting = journal != null && filename.equals(journalSnapshot);
+            }
+            TaskSnapshot.write(filename, tasks.asList(), completedTasks);
+            if (compacting) {
+                journal.truncate();
+            }
+            notifySnapshotSaved(filename);
             System.out.println("Tasks and completion states saved successfully to " + filename);
         } catch (IOException e) {
             System.out.println("Error saving tasks: " + e.getMessage());
+        } finally {
+            stateLock.unlock(stamp);
+        }
+    }
+
+    // The listener is called with the file name each time saveToFile or a write-ahead log
+    // compaction has written a snapshot, while the write lock still keeps every change out,
+    // so state the snapshot covers can be dropped elsewhere (BackupDaemon truncates its
+    // backup). It must be quick and must not call back into the service.
+    public void addSnapshotListener(Consumer<String> listener) {
+        snapshotListeners.add(Objects.requireNonNull(listener));
+    }
+
+    public void removeSnapshotListener(Consumer<String> listener) {
+        snapshotListeners.remove(listener);
+    }
+
+    private void notifySnapshotSaved(String filename) {
+        for (Consumer<String> listener : snapshotListeners) {
+            listener.accept(filename);
+        }
+    }
+
+    // Wakes the daemon on the first pending change, and again once a full batch is pending
+    private void signalChanges(int pending) {
+        if (pending == 1 || pending == backupBatchSize) {
+            synchronized (lock) {
+                lock.notifyAll(); // Notify waiting threads (like BackupDaemon)
+            }
+        }
+    }
+
+    // Opt-in eviction: a change feed subscription that keeps a writer waiting for longer
+    // than maxStall is evicted (see TaskChangeFeed). By default writers wait indefinitely.
+    public void setChangeFeedMaxStall(long maxStall, TimeUnit unit) {
+        changeFeed.setMaxStall(maxStall, unit);
+    }
+
+    // Ordered feed of every change from now on; close the subscription when done with it
+    @LogExecution("Subscribing to task changes")
+    public TaskChangeFeed.Subscription subscribeToChanges() {
+        return changeFeed.subscribe();
+    }
+
+    // Resumes the feed at fromSequence, which must still be among the last 65,536 changes
+    @LogExecution("Resuming task change feed")
+    public TaskChangeFeed.Subscription subscribeToChanges(long fromSequence) {
+        return changeFeed.subscribe(fromSequence);
+    }
+
+    // Threading feature: the daemon waits here for changed tasks.
+    // Blocks until something changed, then lingers until maxBatch changes are pending or
+    // the oldest change is maxLatencyMillis old, so a burst becomes one batch.
+    public ChangeBatch awaitChanges(int maxBatch, long maxLatencyMillis) throws InterruptedException {
+        return awaitChanges(maxBatch, maxLatencyMillis, () -> false);
+    }
+
+    // As above, but returns early (possibly with an empty batch) once stopRequested is true.
+    // Whoever sets the stop condition must call wakeChangeWaiters() afterwards.
+    public ChangeBatch awaitChanges(int maxBatch, long maxLatencyMillis, BooleanSupplier stopRequested)
+            throws InterruptedException {
+        backupBatchSize = maxBatch;
+        while (true) {
+            synchronized (lock) {
+                while (changes.pending() == 0 && !stopRequested.getAsBoolean()) {
+                    lock.wait(); // Wait until notified
+                }
+                long deadline = changes.oldestChangeNanos() + TimeUnit.MILLISECONDS.toNanos(maxLatencyMillis);
+                long remaining;
+                while (changes.pending() < maxBatch && !stopRequested.getAsBoolean()
+                        && (remaining = deadline - System.nanoTime()) > 0) {
+                    TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+                }
+            }
+            ChangeBatch batch = pollChanges(maxBatch);
+            if (batch.size() > 0 || stopRequested.getAsBoolean()) {
+                return batch;
+            }
+            // The pending changes were dropped by a reload; wait for new ones
         }
     }
 
-    // Threading feature: A method for the daemon to wait on
-    public void waitForNewTask() throws InterruptedException {
+    // Wakes threads blocked in awaitChanges so they can re-check their stop condition
+    public void wakeChangeWaiters() {
         synchronized (lock) {
-            while (!newTaskAdded) {
-                lock.wait(); // Wait until notified
+            lock.notifyAll();
+        }
+    }
+
+    // Non-blocking: drains up to maxBatch changed tasks (empty if nothing is pending)
+    public ChangeBatch pollChanges(int maxBatch) {
+        long oldest = changes.oldestChangeNanos();
+        long stamp = stateLock.readLock();
+        try {
+            IntList slots = new IntList(Math.min(maxBatch, Math.max(changes.pending(), 1)));
+            changes.drain(slots, maxBatch);
+            List<Task> changed = new ArrayList<>(slots.size());
+            boolean[] completed = new boolean[slots.size()];
+            for (int i = 0; i < slots.size(); i++) {
+                changed.add(tasks.detach(slots.get(i))); // Stays valid on the daemon thread
+                completed[i] = completedTasks.contains(slots.get(i));
+            }
+            return new ChangeBatch(tasks, slots.toArray(), changed, completed, oldest);
+        } finally {
+            stateLock.unlockRead(stamp);
+        }
+    }
+
+    // Marks the tasks of a batch that could not be backed up as changed again, so a later
+    // batch picks them up in their state at that time. Ignored after a reload, whose
+    // state is already on disk.
+    public void requeueChanges(ChangeBatch batch) {
+        long stamp = stateLock.readLock();
+        try {
+            if (batch.store == tasks) {
+                changes.requeue(batch.slots, batch.oldestChangeNanos);
             }
-            newTaskAdded = false; // Reset flag after processing
+        } finally {
+            stateLock.unlockRead(stamp);
+        }
+    }
+
+    // Static Nested Class: tasks changed since the previous batch, with their completion state
+    public static class ChangeBatch {
+        private final TaskStore store; // The store the slots belong to
+        private final int[] slots;
+        private final List<Task> tasks;
+        private final boolean[] completed;
+        private final long oldestChangeNanos;
+
+        ChangeBatch(TaskStore store, int[] slots, List<Task> tasks, boolean[] completed, long oldestChangeNanos) {
+            this.store = store;
+            this.slots = slots;
+            this.tasks = tasks;
+            this.completed = completed;
+            this.oldestChangeNanos = oldestChangeNanos;
+        }
+
+        public int size() {
+            return tasks.size();
+        }
+
+        public Task getTask(int i) {
+            return tasks.get(i);
+        }
+
+        public boolean isCompleted(int i) {
+            return completed[i];
+        }
+
+        // System.nanoTime() of the oldest change in the batch, for measuring backup lag
+        public long getOldestChangeNanos() {
+            return oldestChangeNanos;
         }
     }
 
     // Arrays & Strings feature
-    @LogExecution("Generating formatted report using StringBuilder & StringBuffer")
+    @LogExecution("Generating formatted report")
     public String generateReport() {
-        StringBuilder sb = new StringBuilder();
-        sb.append("--- TASK MANAGER REPORT ---\n");
-        sb.append("Total Tasks: ").append(tasks.size()).append("\n");
-        sb.append("Completed Tasks: ").append(completedTasks.size()).append("\n");
-        
-        // Using StringBuffer for thread-safe string manipulation (just for demonstration)
-        StringBuffer sbf = new StringBuffer();
-        sbf.append("--- PENDING TASKS ---\n");
-        tasks.stream()
-             .filter(t -> !completedTasks.contains(t.getId()))
-             .forEach(t -> sbf.append(t.toString()).append("\n"));
-             
-        return sb.toString() + sbf.toString();
-    }
-
-    // Arrays feature: Returning a 1D Array
+        StringWriter out = new StringWriter();
+        try {
+            writeReport(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // StringWriter does not throw
+        }
+        return out.toString();
+    }
+
+    // Streams the report in chunks of about REPORT_CHUNK chars through one reused
+    // buffer, so memory stays flat however many tasks there are. The read lock is
+    // held only while a chunk is rendered, never while the writer blocks; the
+    // report covers the tasks present when it started.
+    @LogExecution("Streaming report to a Writer")
+    public void writeReport(Writer out) throws IOException {
+        char[] buffer = new char[REPORT_CHUNK];
+        writeReport(chunk -> {
+            for (int from = 0; from < chunk.length(); from += buffer.length) {
+                int to = Math.min(chunk.length(), from + buffer.length);
+                chunk.getChars(from, to, buffer, 0);
+                out.write(buffer, 0, to - from);
+            }
+        });
+        out.flush();
+    }
+
+    // As above, encoded as UTF-8
+    @LogExecution("Streaming report to a channel")
+    public void writeReport(WritableByteChannel out) throws IOException {
+        CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        CharBuffer chars = CharBuffer.allocate(REPORT_CHUNK);
+        ByteBuffer bytes = ByteBuffer.allocate(REPORT_CHUNK * 3);
+        writeReport(chunk -> {
+            for (int from = 0; from < chunk.length(); ) {
+                int n = Math.min(chunk.length() - from, chars.remaining());
+                chunk.getChars(from, from + n, chars.array(), chars.position());
+                chars.position(chars.position() + n);
+                from += n;
+                chars.flip();
+                CoderResult result;
+                do {
+                    result = encoder.encode(chars, bytes, false);
+                    drain(bytes, out);
+                } while (result.isOverflow());
+                chars.compact(); // Keeps a high surrogate whose pair is in the next piece
+            }
+        });
+        chars.flip();
+        encoder.encode(chars, bytes, true);
+        encoder.flush(bytes);
+        drain(bytes, out);
+    }
+
+    private interface ReportSink {
+        void write(StringBuilder chunk) throws IOException;
+    }
+
+    private void writeReport(ReportSink sink) throws IOException {
+        long today = today();
+        StringBuilder chunk = new StringBuilder(REPORT_CHUNK + 256);
+        TaskStore reported;
+        CompletionSet completion;
+        int total;
+        long stamp = readLockAll();
+        try {
+            // A reload swaps in new objects, so the captured ones stay consistent
+            reported = tasks;
+            completion = completedTasks;
+            total = tasks.size();
+            chunk.append("--- TASK MANAGER REPORT ---\n");
+            chunk.append("Total Tasks: ").append(total).append("\n");
+            chunk.append("Completed Tasks: ").append(completion.size()).append("\n");
+        } finally {
+            stateLock.unlockRead(stamp);
+        }
+        chunk.append("--- PENDING TASKS ---\n");
+
+        int slot = 0;
+        while (true) {
+            stamp = stateLock.readLock();
+            try {
+                for (slot = completion.nextPending(slot); slot < total && chunk.length() < REPORT_CHUNK;
+                     slot = completion.nextPending(slot + 1)) {
+                    reported.get(slot).appendTo(chunk, today);
+                    chunk.append('\n');
+                }
+            } finally {
+                stateLock.unlockRead(stamp);
+            }
+            sink.write(chunk);
+            chunk.setLength(0);
+            if (slot >= total) {
+                return;
+            }
+        }
+    }
+
+    private static void drain(ByteBuffer bytes, WritableByteChannel out) throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining()) {
+            out.write(bytes);
+        }
+        bytes.clear();
+    }
+
+    // Streams every task as CSV or NDJSON (see TaskExporter), in the order they were
+    // added, in chunks of about EXPORT_CHUNK bytes encoded into one reused buffer. As
+    // with writeReport(), the read lock is held only while a chunk is encoded and the
+    // export covers the tasks present when it started. The stream is flushed, not closed.
+    @LogExecution("Exporting tasks to a stream")
+    public void exportTasks(OutputStream out, TaskImporter.Format format) throws IOException {
+        TaskExporter exporter = new TaskExporter(format, EXPORT_CHUNK);
+        exporter.writeHeader();
+        TaskStore exported;
+        CompletionSet completion;
+        int total;
+        long stamp = readLockAll();
+        try {
+            exported = tasks;
+            completion = completedTasks;
+            total = tasks.size();
+        } finally {
+            stateLock.unlockRead(stamp);
+        }
+        int slot = 0;
+        while (slot < total) {
+            stamp = stateLock.readLock();
+            try {
+                for (; slot < total && exporter.size() < EXPORT_CHUNK; slot++) {
+                    exporter.writeRow(exported, slot, completion.contains(slot));
+                }
+            } finally {
+                stateLock.unlockRead(stamp);
+            }
+            exporter.drainTo(out);
+        }
+        exporter.drainTo(out); // The header of an empty export
+        out.flush();
+    }
+
+    // Arrays feature: Returning a 1D Array (a full copy; exportTasks() streams instead)
     @LogExecution("Getting task titles as 1D array")
     public String[] getTaskTitlesArray() {
-        return tasks.stream()
-                    .map(Task::getTitle)
-                    .toArray(String[]::new);
+        long stamp = readLockAll();
+        try {
+            String[] titles = new String[tasks.size()];
+            for (int i = 0; i < titles.length; i++) {
+                titles[i] = tasks.getTitle(i);
+            }
+            return titles;
+        } finally {
+            stateLock.unlockRead(stamp);
+        }
     }
 
     // Arrays feature: Returning a 2D Array matrix [id][title_and_priority]
     @LogExecution("Getting tasks as 2D matrix")
     public String[][] getTaskMatrix() {
-        String[][] matrix = new String[tasks.size()][2];
-        for (int i = 0; i < tasks.size(); i++) {
-            Task t = tasks.get(i);
-            matrix[i][0] = String.valueOf(t.getId());
-            matrix[i][1] = t.getTitle() + " (" + t.getPriority() + ")";
+        long stamp = readLockAll();
+        try {
+            String[][] matrix = new String[tasks.size()][2];
+            for (int i = 0; i < tasks.size(); i++) {
+                matrix[i][0] = String.valueOf(tasks.getId(i));
+                matrix[i][1] = tasks.getTitle(i) + " (" + tasks.getPriority(i) + ")";
+            }
+            return matrix;
+        } finally {
+            stateLock.unlockRead(stamp);
         }
-        return matrix;
     }
 }
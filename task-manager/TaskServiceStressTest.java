@@ -0,0 +1,334 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+// Concurrency stress test for TaskService: 32+ writer threads race adds, completions
+// and delays, and the final state is checked for lost or doubled updates. Runs each
+// scenario against HeapTaskStore, ColumnarTaskStore and OffHeapTaskStore.
+//
+//   javac *.java && java TaskServiceStressTest
+public class TaskServiceStressTest {
+    private static final int WRITERS = 32;
+    private static final int TASKS_PER_WRITER = 2_000;
+    private static final long TIMEOUT_SECONDS = 120;
+
+    private static int testsPassed = 0;
+    private static int testsFailed = 0;
+
+    interface Worker {
+        void run(int thread) throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("===== TASK SERVICE STRESS TEST SUITE =====\n");
+
+        for (String store : new String[] { "heap", "columnar", "offheap" }) {
+            System.out.println("--- " + store + " store, " + WRITERS + " writer threads ---");
+            testConcurrentAdds(store);
+            testConcurrentCompletions(store);
+            testConcurrentDelays(store);
+            testOptimisticReadsDuringGrowth(store);
+            testWriteAheadLogUnderContention(store);
+            System.out.println();
+        }
+
+        printResults();
+        if (testsFailed > 0) {
+            System.exit(1);
+        }
+    }
+
+    // Every thread adds its own IDs and also tries IDs owned by its neighbour
+    private static void testConcurrentAdds(String store) throws Exception {
+        TaskService service = newService(store);
+        AtomicInteger rejected = new AtomicInteger();
+        runWriters(thread -> {
+            int neighbour = (thread + 1) % WRITERS;
+            for (int i = 0; i < TASKS_PER_WRITER; i++) {
+                tryAdd(service, thread * TASKS_PER_WRITER + i, rejected);
+                if (i % 10 == 0) {
+                    tryAdd(service, neighbour * TASKS_PER_WRITER + i, rejected);
+                }
+            }
+        });
+        int total = WRITERS * TASKS_PER_WRITER;
+        assertTrue("[" + store + "] adds: " + total + " tasks stored", taskCount(service) == total);
+        // Each contested ID has exactly one winner, the owner or the neighbour; the other is rejected
+        assertTrue("[" + store + "] adds: duplicate attempts all rejected", rejected.get() == total / 10);
+        int missing = 0;
+        for (int id = 0; id < total; id++) {
+            Task t = service.getTaskOrDefault(id, () -> null);
+            if (t == null || t.getId() != id) {
+                missing++;
+            }
+        }
+        assertTrue("[" + store + "] adds: every ID found by lookup", missing == 0);
+    }
+
+    private static void tryAdd(TaskService service, int id, AtomicInteger rejected) {
+        try {
+            service.addTask(task(id));
+        } catch (InvalidTaskException e) {
+            rejected.incrementAndGet();
+        }
+    }
+
+    // Two threads race to complete every task; exactly one of them may win
+    private static void testConcurrentCompletions(String store) throws Exception {
+        int total = WRITERS * TASKS_PER_WRITER;
+        TaskService service = serviceWith(store, total);
+        AtomicInteger won = new AtomicInteger();
+        AtomicInteger lost = new AtomicInteger();
+        runWriters(thread -> {
+            // Thread t and thread t + WRITERS / 2 cover the same IDs
+            int range = thread % (WRITERS / 2);
+            int per = total / (WRITERS / 2);
+            for (int id = range * per; id < (range + 1) * per; id++) {
+                try {
+                    service.markCompleted(id);
+                    won.incrementAndGet();
+                } catch (InvalidTaskException e) {
+                    lost.incrementAndGet();
+                }
+            }
+        });
+        assertTrue("[" + store + "] completions: each task completed exactly once", won.get() == total);
+        assertTrue("[" + store + "] completions: every second attempt rejected", lost.get() == total);
+        int completed = service.query(new TaskQuery.Builder().setCompleted(true).build()).size();
+        assertTrue("[" + store + "] completions: completion index holds all " + total, completed == total);
+        assertTrue("[" + store + "] completions: nothing left overdue",
+                service.getOverdueTasks(LocalDate.ofEpochDay(1_000_000)).isEmpty());
+    }
+
+    // Every thread delays every task by one day, odd threads through delay() on the
+    // returned task; no delay may be lost
+    private static void testConcurrentDelays(String store) throws Exception {
+        int total = WRITERS * 100;
+        TaskService service = serviceWith(store, total);
+        runWriters(thread -> {
+            for (int i = 0; i < total; i++) {
+                int id = (i + thread * 37) % total; // Threads start at different tasks
+                if (thread % 2 == 0) {
+                    service.delayTask(id, 1);
+                } else {
+                    ((Schedulable) service.getTaskOrDefault(id, () -> null)).delay(1);
+                }
+                if (thread == 0 && i % 7 == 0) {
+                    service.markCompleted(i);
+                }
+            }
+        });
+        int wrong = 0;
+        for (int id = 0; id < total; id++) {
+            LocalDate deadline = ((Schedulable) service.getTaskOrDefault(id, () -> null)).getDeadline();
+            if (!deadline.equals(baseDeadline(id).plusDays(WRITERS))) {
+                wrong++;
+            }
+        }
+        assertTrue("[" + store + "] delays: all " + (total * WRITERS) + " delays applied", wrong == 0);
+        LocalDate asOf = LocalDate.ofEpochDay(20_000 + WRITERS + 50);
+        assertTrue("[" + store + "] delays: overdue index matches a full scan",
+                ids(service.getOverdueTasks(asOf)).equals(overdueByScan(service, asOf)));
+    }
+
+    // Lock-free lookups of existing IDs while writers grow the ID index many times over
+    private static void testOptimisticReadsDuringGrowth(String store) throws Exception {
+        TaskService service = newService(store);
+        int known = 1_000;
+        for (int id = 0; id < known; id++) {
+            service.addTask(task(id));
+        }
+        AtomicBoolean writing = new AtomicBoolean(true);
+        AtomicInteger misses = new AtomicInteger();
+        AtomicInteger lookups = new AtomicInteger();
+        List<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < 4; r++) {
+            Thread reader = new Thread(() -> {
+                int id = 0;
+                while (writing.get()) {
+                    Task t = service.getTaskOrDefault(id, () -> null);
+                    if (t == null || t.getId() != id) {
+                        misses.incrementAndGet();
+                    }
+                    lookups.incrementAndGet();
+                    id = (id + 1) % known;
+                }
+            });
+            reader.start();
+            readers.add(reader);
+        }
+        try {
+            runWriters(thread -> {
+                for (int i = 0; i < TASKS_PER_WRITER; i++) {
+                    service.addTask(task(known + thread * TASKS_PER_WRITER + i));
+                }
+            });
+        } finally {
+            writing.set(false);
+        }
+        boolean finished = true;
+        for (Thread reader : readers) {
+            reader.join(TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS));
+            finished &= !reader.isAlive();
+        }
+        assertTrue("[" + store + "] optimistic reads: readers finished (no endless probe)", finished);
+        assertTrue("[" + store + "] optimistic reads: " + lookups.get() + " lookups, none missed", misses.get() == 0);
+    }
+
+    // With a write-ahead log, what the writers did must survive a reload exactly
+    private static void testWriteAheadLogUnderContention(String store) throws Exception {
+        Path dir = Files.createTempDirectory("stress");
+        String file = dir.resolve("tasks.bin").toString();
+        try {
+            TaskService service = newService(store);
+            service.openWriteAheadLog(file);
+            runWriters(thread -> {
+                for (int i = 0; i < 200; i++) {
+                    int id = thread * 200 + i;
+                    service.addTask(task(id));
+                    if (i % 3 == 0) {
+                        service.markCompleted(id);
+                    }
+                    if (i % 5 == 0) {
+                        service.delayTask(id, thread + 1);
+                    }
+                }
+            });
+            service.closeWriteAheadLog();
+            TaskService reloaded = newService(store);
+            reloaded.loadFromFile(file);
+            assertTrue("[" + store + "] write-ahead log: reload matches the live service",
+                    export(service).equals(export(reloaded)));
+        } finally {
+            try (Stream<Path> files = Files.list(dir)) {
+                for (Path p : (Iterable<Path>) files::iterator) {
+                    Files.delete(p);
+                }
+            }
+            Files.delete(dir);
+        }
+    }
+
+    // Starts WRITERS threads together and waits for all of them; a worker exception fails the run
+    private static void runWriters(Worker worker) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        List<Throwable> errors = new ArrayList<>();
+        for (int t = 0; t < WRITERS; t++) {
+            int thread = t;
+            Thread writer = new Thread(() -> {
+                try {
+                    start.await();
+                    worker.run(thread);
+                } catch (Throwable e) {
+                    synchronized (errors) {
+                        errors.add(e);
+                    }
+                }
+            });
+            writer.start();
+            threads.add(writer);
+        }
+        start.countDown();
+        for (Thread writer : threads) {
+            writer.join(TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS));
+            if (writer.isAlive()) {
+                throw new IllegalStateException("Writer did not finish within " + TIMEOUT_SECONDS + " s");
+            }
+        }
+        if (!errors.isEmpty()) {
+            throw new IllegalStateException("Writer failed: " + errors.get(0), errors.get(0));
+        }
+    }
+
+    private static TaskService newService(String store) {
+        switch (store) {
+            case "heap": return new TaskService(new HeapTaskStore());
+            case "columnar": return new TaskService(new ColumnarTaskStore());
+            case "offheap": return new TaskService(new OffHeapTaskStore());
+            default: throw new IllegalArgumentException("Unknown store " + store);
+        }
+    }
+
+    private static TaskService serviceWith(String store, int count) throws InvalidTaskException {
+        TaskService service = newService(store);
+        for (int id = 0; id < count; id++) {
+            service.addTask(task(id));
+        }
+        return service;
+    }
+
+    private static Task task(int id) {
+        return new DeadlineTask(id, "Task " + id, Priority.values()[id % 3], baseDeadline(id));
+    }
+
+    private static LocalDate baseDeadline(int id) {
+        return LocalDate.ofEpochDay(20_000 + id % 100);
+    }
+
+    private static int taskCount(TaskService service) {
+        return service.getTaskTitlesArray().length;
+    }
+
+    private static Set<Integer> ids(List<Task> tasks) {
+        Set<Integer> ids = new HashSet<>();
+        for (Task t : tasks) {
+            ids.add(t.getId());
+        }
+        return ids;
+    }
+
+    private static Set<Integer> overdueByScan(TaskService service, LocalDate asOf) {
+        List<Task> pending = service.query(new TaskQuery.Builder().setCompleted(false).build());
+        Set<Integer> ids = new HashSet<>();
+        for (Task t : pending) {
+            if (t instanceof Schedulable && ((Schedulable) t).getDeadline().isBefore(asOf)) {
+                ids.add(t.getId());
+            }
+        }
+        return ids;
+    }
+
+    private static String export(TaskService service) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.exportTasks(out, TaskImporter.Format.CSV);
+        return out.toString("UTF-8");
+    }
+
+    private static void assertTrue(String testName, boolean condition) {
+        if (condition) {
+            pass(testName);
+        } else {
+            fail(testName);
+        }
+    }
+
+    private static void pass(String testName) {
+        System.out.println("✓ PASS: " + testName);
+        testsPassed++;
+    }
+
+    private static void fail(String testName) {
+        System.out.println("✗ FAIL: " + testName);
+        testsFailed++;
+    }
+
+    private static void printResults() {
+        System.out.println("===== TEST RESULTS =====");
+        System.out.println("Passed: " + testsPassed);
+        System.out.println("Failed: " + testsFailed);
+        System.out.println("Total:  " + (testsPassed + testsFailed));
+        System.out.println("Status: " + (testsFailed == 0 ? "ALL TESTS PASSED ✓" : "SOME TESTS FAILED ✗"));
+    }
+}
@@ -0,0 +1,451 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.util.*;
+
+// Compact binary snapshot of the task list, replacing Java serialization.
+//
+// Layout (version 2):
+//   int    magic "TSKS", byte version, int taskCount, int titleCount
+//   titles titleCount x (varint length, UTF-8 bytes), each distinct title once
+//   tasks  taskCount  x (byte flags, zigzag varint id, varint title ref,
+//                        [zigzag varint epoch-day deadline])
+//   offset tables for random access (see MappedTaskSnapshot):
+//          titleCount x long title offset,
+//          taskCount x int id sorted ascending, then taskCount x long record offset
+//   footer long records position, long title table position, long id table position, int magic
+//
+// Version 1 files end with the magic right after the task records and have
+// no offset tables; they can still be read eagerly.
+//
+// flags: bits 0-2 priority ordinal + 1 (0 = null), bit 3 deadline task,
+// bit 4 deadline present, bit 5 completed. A title ref of 0 means null,
+// otherwise it is the 1-based index into the title table.
+public class TaskSnapshot {
+    static final int MAGIC = 0x54534B53;
+    static final byte VERSION = 2;
+    static final int FOOTER_SIZE = 8 + 8 + 8 + 4;
+
+    static final int FLAG_DEADLINE_TASK = 1 << 3;
+    static final int FLAG_HAS_DEADLINE = 1 << 4;
+    static final int FLAG_COMPLETED = 1 << 5;
+
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final Priority[] PRIORITIES = Priority.values();
+
+    private final List<Task> tasks;
+    private final CompletionSet completed;
+
+    private TaskSnapshot(List<Task> tasks, CompletionSet completed) {
+        this.tasks = tasks;
+        this.completed = completed;
+    }
+
+    public List<Task> getTasks() {
+        return tasks;
+    }
+
+    // Completion bits keyed by position in getTasks()
+    public CompletionSet getCompleted() {
+        return completed;
+    }
+
+    // True if the file starts with the snapshot magic (legacy files start with the Java serialization header)
+    public static boolean isSnapshot(String filename) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(4);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // keep reading until 4 bytes or EOF
+            }
+            return header.position() == 4 && header.getInt(0) == MAGIC;
+        }
+    }
+
+    // Writes to a temporary file first and moves it into place, so a crash never leaves a half-written snapshot
+    public static void write(String filename, List<Task> tasks, CompletionSet completed) throws IOException {
+        Path target = Paths.get(filename);
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+
+        // Intern titles: repeated titles are stored once and referenced by index
+        Map<String, Integer> titleRefs = new HashMap<>();
+        List<String> titles = new ArrayList<>();
+        for (Task t : tasks) {
+            String title = t.getTitle();
+            if (title != null && !titleRefs.containsKey(title)) {
+                titleRefs.put(title, titles.size() + 1);
+                titles.add(title);
+            }
+        }
+
+        try (Output out = new Output(FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))) {
+            out.putInt(MAGIC);
+            out.putByte(VERSION);
+            out.putInt(tasks.size());
+            out.putInt(titles.size());
+            long[] titleOffsets = new long[titles.size()];
+            for (int i = 0; i < titles.size(); i++) {
+                titleOffsets[i] = out.position();
+                out.putString(titles.get(i));
+            }
+            long recordsPos = out.position();
+            // (id << 32 | slot) sorts by signed id and remembers where the record went
+            long[] idOrder = new long[tasks.size()];
+            long[] recordOffsets = new long[tasks.size()];
+            for (int slot = 0; slot < tasks.size(); slot++) {
+                Task t = tasks.get(slot);
+                String title = t.getTitle();
+                idOrder[slot] = ((long) t.getId() << 32) | slot;
+                recordOffsets[slot] = out.position();
+                writeRecord(out, t, title == null ? 0 : titleRefs.get(title), completed.contains(slot));
+            }
+            Arrays.sort(idOrder);
+
+            long titleTablePos = out.position();
+            for (long offset : titleOffsets) {
+                out.putLong(offset);
+            }
+            long idTablePos = out.position();
+            for (long entry : idOrder) {
+                out.putInt((int) (entry >> 32));
+            }
+            for (long entry : idOrder) {
+                out.putLong(recordOffsets[(int) entry]);
+            }
+            out.putLong(recordsPos);
+            out.putLong(titleTablePos);
+            out.putLong(idTablePos);
+            out.putInt(MAGIC);
+            out.force();
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Reads either format, picking the reader from the file header
+    public static TaskSnapshot load(String filename) throws IOException {
+        return isSnapshot(filename) ? read(filename) : readLegacy(filename);
+    }
+
+    // Imports a tasks.ser written with ObjectOutputStream: the task List followed by either
+    // a HashSet<Integer> of completed IDs or a CompletionSet of completed positions
+    @SuppressWarnings("unchecked")
+    public static TaskSnapshot readLegacy(String filename) throws IOException {
+        try (ObjectInputStream ois = new ObjectInputStream(new BufferedInputStream(new FileInputStream(filename)))) {
+            List<Task> tasks = (List<Task>) ois.readObject();
+            Object completion = ois.readObject();
+            if (completion instanceof CompletionSet) {
+                return new TaskSnapshot(tasks, (CompletionSet) completion);
+            }
+            Set<?> completedIds = (Set<?>) completion;
+            CompletionSet completed = new CompletionSet(tasks.size());
+            for (int slot = 0; slot < tasks.size(); slot++) {
+                if (completedIds.contains(tasks.get(slot).getId())) {
+                    completed.add(slot);
+                }
+            }
+            return new TaskSnapshot(tasks, completed);
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new IOException("Unreadable legacy save file: " + e.getMessage(), e);
+        }
+    }
+
+    public static TaskSnapshot read(String filename) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ);
+             Input in = new Input(channel)) {
+            if (in.getInt() != MAGIC) {
+                throw new IOException("Not a task snapshot: " + filename);
+            }
+            byte version = in.getByte();
+            if (version < 1 || version > VERSION) {
+                throw new IOException("Unsupported snapshot version " + version + " in " + filename);
+            }
+            // Version 2 records end where the title offset table starts
+            long recordsEnd = version >= 2 ? readFooter(channel, filename)[1] : -1;
+            int taskCount = in.getInt();
+            int titleCount = in.getInt();
+            if (taskCount < 0 || titleCount < 0) {
+                throw new IOException("Corrupt snapshot header in " + filename);
+            }
+
+            String[] titles = new String[titleCount + 1];
+            for (int i = 1; i <= titleCount; i++) {
+                titles[i] = in.getString();
+            }
+
+            List<Task> tasks = new ArrayList<>(taskCount);
+            CompletionSet completed = new CompletionSet(taskCount);
+            for (int slot = 0; slot < taskCount; slot++) {
+                int flags = in.getByte();
+                tasks.add(readRecord(in, flags, titles));
+                if ((flags & FLAG_COMPLETED) != 0) {
+                    completed.add(slot);
+                }
+            }
+            boolean intact = version >= 2 ? in.position() == recordsEnd : in.getInt() == MAGIC;
+            if (!intact) {
+                throw new IOException("Snapshot is truncated or corrupt: " + filename);
+            }
+            return new TaskSnapshot(tasks, completed);
+        }
+    }
+
+    // Reads the version 2 footer: { records position, title table position, id table position }
+    static long[] readFooter(FileChannel channel, String filename) throws IOException {
+        long size = channel.size();
+        if (size < 13 + FOOTER_SIZE) {
+            throw new IOException("Snapshot is truncated or corrupt: " + filename);
+        }
+        ByteBuffer footer = ByteBuffer.allocate(FOOTER_SIZE);
+        while (footer.hasRemaining()) {
+            if (channel.read(footer, size - FOOTER_SIZE + footer.position()) < 0) {
+                throw new EOFException("Unexpected end of snapshot");
+            }
+        }
+        footer.flip();
+        long recordsPos = footer.getLong();
+        long titleTablePos = footer.getLong();
+        long idTablePos = footer.getLong();
+        if (footer.getInt() != MAGIC || recordsPos < 13 || titleTablePos < recordsPos
+                || idTablePos < titleTablePos || idTablePos > size) {
+            throw new IOException("Snapshot is truncated or corrupt: " + filename);
+        }
+        return new long[] { recordsPos, titleTablePos, idTablePos };
+    }
+
+    static void writeRecord(Sink out, Task t, long titleRef, boolean completed) throws IOException {
+        int flags = t.getPriority() == null ? 0 : t.getPriority().ordinal() + 1;
+        LocalDate deadline = null;
+        if (t instanceof DeadlineTask) {
+            flags |= FLAG_DEADLINE_TASK;
+            deadline = ((DeadlineTask) t).getDeadline();
+            if (deadline != null) {
+                flags |= FLAG_HAS_DEADLINE;
+            }
+        }
+        if (completed) {
+            flags |= FLAG_COMPLETED;
+        }
+        out.putByte(flags);
+        out.putVarLong(zigZag(t.getId()));
+        out.putTitle(t.getTitle(), titleRef);
+        if (deadline != null) {
+            out.putVarLong(zigZag(deadline.toEpochDay()));
+        }
+    }
+
+    static Task readRecord(Source in, int flags, String[] titles) throws IOException {
+        return readRecord(in, flags, ref -> {
+            if (ref >= titles.length) {
+                throw new IOException("Title reference " + ref + " out of range");
+            }
+            return titles[(int) ref];
+        });
+    }
+
+    static Task readRecord(Source in, int flags, TitleLookup titles) throws IOException {
+        int id = (int) unZigZag(in.getVarLong());
+        String title = titles.title(in.getVarLong());
+        int p = flags & 0x7;
+        if (p > PRIORITIES.length) {
+            throw new IOException("Unknown priority code " + p);
+        }
+        Priority priority = p == 0 ? null : PRIORITIES[p - 1];
+        if ((flags & FLAG_DEADLINE_TASK) == 0) {
+            return new Task(id, title, priority);
+        }
+        LocalDate deadline = (flags & FLAG_HAS_DEADLINE) == 0 ? null : LocalDate.ofEpochDay(unZigZag(in.getVarLong()));
+        return new DeadlineTask(id, title, priority, deadline);
+    }
+
+    static long zigZag(long v) {
+        return (v << 1) ^ (v >> 63);
+    }
+
+    static long unZigZag(long v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    // Sequential byte sink that records are encoded into
+    interface Sink {
+        void putByte(int b) throws IOException;
+
+        void putVarLong(long v) throws IOException;
+
+        // Snapshots write a reference into the title table; other sinks may inline the title instead
+        default void putTitle(String title, long ref) throws IOException {
+            putVarLong(ref);
+        }
+    }
+
+    // Sequential byte source that records are decoded from
+    interface Source {
+        byte getByte() throws IOException;
+
+        default long getVarLong() throws IOException {
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = getByte();
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+            throw new IOException("Malformed varint");
+        }
+    }
+
+    // Resolves a title reference (0 = null title) to its string
+    interface TitleLookup {
+        String title(long ref) throws IOException;
+    }
+
+    // Buffered writer over a FileChannel using a direct ByteBuffer
+    static class Output implements Sink, Closeable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private long flushed;
+
+        Output(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        @Override
+        public void putByte(int b) throws IOException {
+            ensure(1);
+            buffer.put((byte) b);
+        }
+
+        void putInt(int v) throws IOException {
+            ensure(4);
+            buffer.putInt(v);
+        }
+
+        void putLong(long v) throws IOException {
+            ensure(8);
+            buffer.putLong(v);
+        }
+
+        // Absolute file position of the next byte written
+        long position() {
+            return flushed + buffer.position();
+        }
+
+        @Override
+        public void putVarLong(long v) throws IOException {
+            ensure(10);
+            while ((v & ~0x7FL) != 0) {
+                buffer.put((byte) ((v & 0x7F) | 0x80));
+                v >>>= 7;
+            }
+            buffer.put((byte) v);
+        }
+
+        void putString(String s) throws IOException {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            putVarLong(bytes.length);
+            int offset = 0;
+            while (offset < bytes.length) {
+                ensure(1);
+                int n = Math.min(buffer.remaining(), bytes.length - offset);
+                buffer.put(bytes, offset, n);
+                offset += n;
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            flushed += buffer.remaining();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        // Flushes the buffer and fsyncs the file contents
+        void force() throws IOException {
+            flush();
+            channel.force(false);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    // Buffered reader over a FileChannel using a direct ByteBuffer
+    static class Input implements Source, Closeable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private long consumed;
+
+        Input(FileChannel channel) {
+            this.channel = channel;
+            buffer.limit(0);
+        }
+
+        private void require(int bytes) throws IOException {
+            if (buffer.remaining() >= bytes) {
+                return;
+            }
+            consumed += buffer.position();
+            buffer.compact();
+            while (buffer.position() < bytes) {
+                if (channel.read(buffer) < 0) {
+                    throw new EOFException("Unexpected end of snapshot");
+                }
+            }
+            buffer.flip();
+        }
+
+        // Absolute file position of the next byte to read
+        long position() {
+            return consumed + buffer.position();
+        }
+
+        @Override
+        public byte getByte() throws IOException {
+            require(1);
+            return buffer.get();
+        }
+
+        int getInt() throws IOException {
+            require(4);
+            return buffer.getInt();
+        }
+
+        String getString() throws IOException {
+            long length = getVarLong();
+            if (length < 0 || length > Integer.MAX_VALUE) {
+                throw new IOException("Invalid string length " + length);
+            }
+            byte[] bytes = new byte[(int) length];
+            int offset = 0;
+            while (offset < bytes.length) {
+                require(1);
+                int n = Math.min(buffer.remaining(), bytes.length - offset);
+                buffer.get(bytes, offset, n);
+                offset += n;
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,140 @@
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.LongUnaryOperator;
+
+// Slot-addressed storage behind TaskService: slot i holds the i-th task added,
+// and slots never move. The primitive accessors let scans, sorts and query
+// checks read a field without materializing a Task. Not thread-safe on its
+// own; TaskService reads under its read lock and writes under its write lock.
+//
+//   HeapTaskStore     - one Task object per slot (default)
+//   ColumnarTaskStore - one primitive array per field, Tasks are flyweight views
+public interface TaskStore {
+    // getDeadlineDay() of a task without a deadline
+    long NO_DEADLINE = Long.MIN_VALUE;
+
+    int size();
+
+    default boolean isEmpty() {
+        return size() == 0;
+    }
+
+    // Appends the task and returns its slot
+    int add(Task task);
+
+    // Makes room for adding the tasks, so that add() cannot then fail for lack of space,
+    // or throws IllegalStateException with nothing added if they do not fit. TaskService
+    // calls it before it logs the adds, so a logged task is always applied.
+    void reserve(List<Task> tasks);
+
+    // The task itself, or a view of it that reflects later changes (delayTask)
+    Task get(int slot);
+
+    int getId(int slot);
+
+    String getTitle(int slot);
+
+    Priority getPriority(int slot);
+
+    // Copies the title's UTF-8 bytes into buffer at offset and returns how many there
+    // are, or -1 for a null title. If they do not fit, nothing is copied and the count
+    // is still returned, so the caller can grow the buffer and retry. Unlike getTitle()
+    // this creates no String for packed stores, whose titles are stored as UTF-8.
+    default int getTitleUtf8(int slot, byte[] buffer, int offset) {
+        String title = getTitle(slot);
+        if (title == null) {
+            return -1;
+        }
+        int length = title.length();
+        int bytes = length;
+        for (int i = 0; i < length; i++) {
+            char c = title.charAt(i);
+            if (c < 0x80) {
+                continue;
+            }
+            if (!Character.isSurrogate(c)) {
+                bytes += c < 0x800 ? 1 : 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(title.charAt(i + 1))) {
+                bytes += 2; // 4 bytes for the pair's 2 chars
+                i++;
+            } // A lone surrogate becomes one '?'
+        }
+        if (bytes > buffer.length - offset) {
+            return bytes;
+        }
+        int n = offset;
+        for (int i = 0; i < length; i++) {
+            char c = title.charAt(i);
+            if (c < 0x80) {
+                buffer[n++] = (byte) c;
+            } else if (c < 0x800) {
+                buffer[n++] = (byte) (0xC0 | c >> 6);
+                buffer[n++] = (byte) (0x80 | c & 0x3F);
+            } else if (!Character.isSurrogate(c)) {
+                buffer[n++] = (byte) (0xE0 | c >> 12);
+                buffer[n++] = (byte) (0x80 | c >> 6 & 0x3F);
+                buffer[n++] = (byte) (0x80 | c & 0x3F);
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(title.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, title.charAt(++i));
+                buffer[n++] = (byte) (0xF0 | cp >> 18);
+                buffer[n++] = (byte) (0x80 | cp >> 12 & 0x3F);
+                buffer[n++] = (byte) (0x80 | cp >> 6 & 0x3F);
+                buffer[n++] = (byte) (0x80 | cp & 0x3F);
+            } else {
+                buffer[n++] = '?'; // Lone surrogate, as String.getBytes() encodes it
+            }
+        }
+        return bytes;
+    }
+
+    // Epoch day of a Schedulable task's deadline, NO_DEADLINE if it has none
+    long getDeadlineDay(int slot);
+
+    // A task that stays valid on its own, e.g. for handing to another thread
+    Task detach(int slot);
+
+    // Moves the deadline of the Schedulable task in the slot by days, bypassing the
+    // scheduler. Only TaskService calls this, under its write lock.
+    void delay(int slot, int days);
+
+    // Where delay() and setDeadline() on the DeadlineTasks this store hands out are sent.
+    // TaskService sets itself, so such a call moves the task in its deadline index and
+    // is logged and published like delayTask(). With null they change only the store.
+    void setScheduler(Scheduler scheduler);
+
+    // An empty store of the same kind, sized for expectedSize tasks
+    TaskStore newEmpty(int expectedSize);
+
+    // Read-only list over the slots, for streams and snapshots
+    default List<Task> asList() {
+        return new SlotList(this);
+    }
+
+    // Changes the deadline of the task with the given ID; newDay maps its current
+    // deadline (an epoch day) to the new one
+    interface Scheduler {
+        void reschedule(int id, LongUnaryOperator newDay);
+    }
+
+    final class SlotList extends AbstractList<Task> implements RandomAccess {
+        private final TaskStore store;
+
+        SlotList(TaskStore store) {
+            this.store = store;
+        }
+
+        @Override
+        public Task get(int index) {
+            if (index < 0 || index >= store.size()) {
+                throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + store.size());
+            }
+            return store.get(index);
+        }
+
+        @Override
+        public int size() {
+            return store.size();
+        }
+    }
+}
@@ -0,0 +1,185 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Inverted index over task titles: case-folded word -> postings, the slots of
+// the tasks whose title contains the word. Slots are only ever appended in
+// increasing order, so every postings list is a sorted int array and a
+// multi-word search is an intersection of sorted lists, smallest first.
+// Words are sorted too, so the words starting with a prefix form one range of
+// the TreeMap (type-ahead). Updated under TaskService's write lock.
+public class TitleIndex {
+    private final TreeMap<String, IntList> postings = new TreeMap<>();
+
+    public void add(int slot, String title) {
+        for (String term : tokenize(title)) {
+            IntList list = postings.computeIfAbsent(term, t -> new IntList(2));
+            if (list.isEmpty() || list.get(list.size() - 1) != slot) {
+                list.add(slot);
+            }
+        }
+    }
+
+    public void clear() {
+        postings.clear();
+    }
+
+    public int termCount() {
+        return postings.size();
+    }
+
+    // Slots whose title contains every word of text, ascending. With prefixLast the
+    // last word only has to start a word of the title, as while the user is typing.
+    public IntList search(String text, boolean prefixLast) {
+        List<String> terms = tokenize(text);
+        if (terms.isEmpty()) {
+            return new IntList(0);
+        }
+        IntList[] lists = new IntList[terms.size()];
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = prefixLast && i == lists.length - 1 ? matchPrefix(terms.get(i)) : postings.get(terms.get(i));
+            if (lists[i] == null || lists[i].isEmpty()) {
+                return new IntList(0);
+            }
+        }
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.size(), b.size()));
+        IntList result = lists[0];
+        for (int i = 1; i < lists.length && !result.isEmpty(); i++) {
+            result = intersect(result, lists[i]);
+        }
+        return result == lists[0] ? copy(result) : result; // Never hand out a postings list itself
+    }
+
+    // Slots with a title word starting with prefix (already case-folded), ascending
+    public IntList matchPrefix(String prefix) {
+        Map<String, IntList> range = prefixRange(prefix);
+        if (range.size() == 1) {
+            return copy(range.values().iterator().next());
+        }
+        IntList merged = new IntList();
+        for (IntList list : range.values()) {
+            for (int i = 0; i < list.size(); i++) {
+                merged.add(list.get(i));
+            }
+        }
+        merged.sort();
+        return dedupe(merged);
+    }
+
+    // Number of postings under prefix, counting stops once it exceeds max
+    public int countPrefix(String prefix, int max) {
+        int count = 0;
+        for (IntList list : prefixRange(prefix).values()) {
+            count += list.size();
+            if (count > max) {
+                break;
+            }
+        }
+        return count;
+    }
+
+    // Up to limit indexed words starting with prefix, in alphabetical order
+    public List<String> suggest(String prefix, int limit) {
+        List<String> terms = new ArrayList<>(Math.min(limit, 16));
+        for (String term : prefixRange(fold(prefix)).keySet()) {
+            if (terms.size() >= limit) {
+                break;
+            }
+            terms.add(term);
+        }
+        return terms;
+    }
+
+    private Map<String, IntList> prefixRange(String prefix) {
+        // Every word starting with prefix sorts before prefix + U+FFFF
+        return postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+
+    // Words of text: maximal runs of letters and digits, case-folded, without duplicates
+    static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+        StringBuilder term = new StringBuilder();
+        for (int i = 0; i <= text.length(); ) {
+            int cp = i < text.length() ? text.codePointAt(i) : ' ';
+            if (Character.isLetterOrDigit(cp)) {
+                term.appendCodePoint(foldCodePoint(cp));
+            } else if (term.length() > 0) {
+                String t = term.toString();
+                if (!terms.contains(t)) {
+                    terms.add(t);
+                }
+                term.setLength(0);
+            }
+            i += Character.charCount(cp);
+        }
+        return terms;
+    }
+
+    // Folds the way String.regionMatches(true, ...) compares characters
+    static String fold(String text) {
+        StringBuilder sb = new StringBuilder(text.length());
+        text.codePoints().forEach(cp -> sb.appendCodePoint(foldCodePoint(cp)));
+        return sb.toString();
+    }
+
+    private static int foldCodePoint(int cp) {
+        return Character.toLowerCase(Character.toUpperCase(cp));
+    }
+
+    // Walks the shorter list and gallops through the longer one
+    private static IntList intersect(IntList small, IntList large) {
+        IntList result = new IntList(small.size());
+        int from = 0;
+        for (int i = 0; i < small.size() && from < large.size(); i++) {
+            int value = small.get(i);
+            int step = 1;
+            int hi = from;
+            while (hi < large.size() && large.get(hi) < value) {
+                from = hi + 1;
+                hi += step;
+                step <<= 1;
+            }
+            // value, if present, is in [from, min(hi, size - 1)]
+            int lo = from;
+            int top = Math.min(hi, large.size() - 1);
+            while (lo <= top) {
+                int mid = (lo + top) >>> 1;
+                int v = large.get(mid);
+                if (v < value) {
+                    lo = mid + 1;
+                } else if (v > value) {
+                    top = mid - 1;
+                } else {
+                    result.add(value);
+                    lo = mid + 1;
+                    break;
+                }
+            }
+            from = lo;
+        }
+        return result;
+    }
+
+    private static IntList dedupe(IntList sorted) {
+        IntList result = new IntList(sorted.size());
+        for (int i = 0; i < sorted.size(); i++) {
+            if (i == 0 || sorted.get(i) != sorted.get(i - 1)) {
+                result.add(sorted.get(i));
+            }
+        }
+        return result;
+    }
+
+    private static IntList copy(IntList list) {
+        IntList result = new IntList(list.size());
+        for (int i = 0; i < list.size(); i++) {
+            result.add(list.get(i));
+        }
+        return result;
+    }
+}
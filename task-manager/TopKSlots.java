@@ -0,0 +1,80 @@
+// Bounded heap that keeps the k smallest task slots under a comparator, so a
+// sorted page can be served in O(n log k) without sorting (or copying) the
+// whole task list. The heap root is the largest slot kept; a new slot only
+// enters if it sorts before the root.
+public class TopKSlots {
+    // Orders task slots; must be a total order (break ties by slot)
+    public interface SlotComparator {
+        int compare(int slot1, int slot2);
+    }
+
+    private final int[] heap;
+    private final SlotComparator comparator;
+    private int size;
+
+    public TopKSlots(int k, SlotComparator comparator) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k must be >= 0");
+        }
+        this.heap = new int[k];
+        this.comparator = comparator;
+    }
+
+    public void offer(int slot) {
+        if (size < heap.length) {
+            heap[size] = slot;
+            siftUp(size++);
+        } else if (size > 0 && comparator.compare(slot, heap[0]) < 0) {
+            heap[0] = slot;
+            siftDown(0);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Empties the heap into an array sorted ascending
+    public int[] drainSorted() {
+        int[] sorted = new int[size];
+        for (int i = size - 1; i >= 0; i--) {
+            sorted[i] = heap[0];
+            heap[0] = heap[--size];
+            siftDown(0);
+        }
+        return sorted;
+    }
+
+    private void siftUp(int i) {
+        int slot = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (comparator.compare(slot, heap[parent]) <= 0) {
+                break;
+            }
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = slot;
+    }
+
+    private void siftDown(int i) {
+        if (size == 0) {
+            return;
+        }
+        int slot = heap[i];
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && comparator.compare(heap[child + 1], heap[child]) > 0) {
+                child++;
+            }
+            if (comparator.compare(slot, heap[child]) >= 0) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = slot;
+    }
+}
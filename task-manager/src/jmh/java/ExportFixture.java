@@ -0,0 +1,52 @@
+import bench.micro.Fixture;
+import bench.micro.Operation;
+
+import java.io.BufferedWriter;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+// exportTasks() against handing the same data out as getTaskMatrix() and writing that
+public class ExportFixture implements Fixture {
+    private static final OutputStream DISCARD = OutputStream.nullOutputStream();
+
+    private final TaskService service;
+
+    public ExportFixture(String store, int count) throws InvalidTaskException {
+        service = new TaskService(TaskWorkload.newStore(store, count));
+        service.addTasks(TaskWorkload.deadlineTasks(count));
+    }
+
+    @Override
+    public Operation operation(String name) {
+        switch (name) {
+            case "taskMatrixAsCsv":
+                return () -> {
+                    Writer out = new BufferedWriter(new OutputStreamWriter(DISCARD, StandardCharsets.UTF_8));
+                    long rows = 0;
+                    for (String[] row : service.getTaskMatrix()) {
+                        out.write(row[0]);
+                        out.write(',');
+                        out.write(row[1]);
+                        out.write('\n');
+                        rows++;
+                    }
+                    out.flush();
+                    return rows;
+                };
+            case "exportCsv":
+                return () -> {
+                    service.exportTasks(DISCARD, TaskImporter.Format.CSV);
+                    return 0;
+                };
+            case "exportNdjson":
+                return () -> {
+                    service.exportTasks(DISCARD, TaskImporter.Format.NDJSON);
+                    return 0;
+                };
+            default:
+                throw new IllegalArgumentException("Unknown operation " + name);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+import bench.micro.Fixture;
+import bench.micro.Operation;
+
+import java.time.LocalDate;
+
+// A service keeping count tasks live. Young collections skip old objects, but a full
+// collection traces (and compacts) every live object, so its pause follows the size
+// of the heap graph the store keeps.
+public class GcFixture implements Fixture {
+    private static final String[] WORDS = { "Review", "Deploy", "Fix", "Write", "Plan", "Test" };
+
+    private final TaskService service;
+    private final TaskQuery dueThisMonth;
+    private final double heapBytes;
+    private int round;
+
+    public GcFixture(String store, int count) throws InvalidTaskException, InterruptedException {
+        LocalDate today = LocalDate.now();
+        long before = StorageFixture.usedHeap();
+        service = new TaskService(TaskWorkload.newStore(store, count));
+        for (int i = 0; i < count; i++) {
+            service.addTask(new DeadlineTask(i, WORDS[i % WORDS.length] + " item " + (i % 1000),
+                    Priority.values()[i % 3], today.plusDays(i % 731 - 365)));
+        }
+        heapBytes = StorageFixture.usedHeap() - before;
+        dueThisMonth = new TaskQuery.Builder().setDeadlineRange(today, today.plusDays(30)).build();
+    }
+
+    @Override
+    public Operation operation(String name) {
+        switch (name) {
+            case "fullGc":
+                return () -> {
+                    System.gc();
+                    return 0;
+                };
+            case "queries": // Result lists (and, for packed stores, views) die young
+                return () -> service.query(dueThisMonth).size()
+                        + service.getSortedPage(TaskQuery.Order.DEADLINE, round++ % 20, 100).size();
+            default:
+                throw new IllegalArgumentException("Unknown operation " + name);
+        }
+    }
+
+    @Override
+    public double measured(String name) {
+        if (name.equals("heapBytes")) {
+            return heapBytes;
+        }
+        return Fixture.super.measured(name);
+    }
+}
@@ -0,0 +1,80 @@
+import bench.micro.Fixture;
+import bench.micro.Operation;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+// TaskImporter against reading the same CSV line by line and calling addTask() per row
+public class ImportFixture implements Fixture {
+    private final String store;
+    private final int count;
+    private final Path file;
+
+    public ImportFixture(String store, int count) throws IOException {
+        this.store = store;
+        this.count = count;
+        file = Files.createTempFile("tasks", ".csv");
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write("id,title,priority,deadline,completed\n");
+            LocalDate today = LocalDate.now();
+            for (int i = 0; i < count; i++) {
+                out.write(i + ",Task " + i + "," + Priority.values()[i % 3] + ","
+                        + (i % 2 == 0 ? today.plusDays(i % 731 - 365).toString() : "") + "," + (i % 5 == 0) + "\n");
+            }
+        }
+    }
+
+    @Override
+    public Operation operation(String name) {
+        switch (name) {
+            case "readLineAndAddTask":
+                return this::readLineAndAddTask;
+            case "importer":
+                return () -> importer(1);
+            case "importerAllCpus":
+                return () -> importer(Runtime.getRuntime().availableProcessors());
+            default:
+                throw new IllegalArgumentException("Unknown operation " + name);
+        }
+    }
+
+    private long readLineAndAddTask() throws IOException, InvalidTaskException {
+        TaskService service = new TaskService(TaskWorkload.newStore(store, count));
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            in.readLine(); // Header
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] fields = line.split(",", -1);
+                Task.TaskBuilder builder = new Task.TaskBuilder()
+                        .setId(Integer.parseInt(fields[0]))
+                        .setTitle(fields[1])
+                        .setPriority(Priority.valueOf(fields[2]));
+                if (!fields[3].isEmpty()) {
+                    builder.setDeadline(LocalDate.parse(fields[3]));
+                }
+                Task task = builder.build();
+                service.addTask(task);
+                if (Boolean.parseBoolean(fields[4])) {
+                    service.markCompleted(task.getId());
+                }
+            }
+        }
+        return service.getTaskOrDefault(count - 1, () -> null).getId();
+    }
+
+    private long importer(int threads) throws IOException {
+        TaskService service = new TaskService(TaskWorkload.newStore(store, count));
+        new TaskImporter(service, threads, 4 << 20).importFile(file);
+        return service.getTaskOrDefault(count - 1, () -> null).getId();
+    }
+
+    @Override
+    public void close() throws IOException {
+        Files.deleteIfExists(file);
+    }
+}
@@ -0,0 +1,48 @@
+import bench.micro.Fixture;
+import bench.micro.Operation;
+
+// Cost of the TaskMetrics proxy on a cheap call, and of recording under contention
+public class MetricsFixture implements Fixture {
+    private final int count;
+    private final TaskService service;
+    private final TaskOperations instrumented;
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    public MetricsFixture(String store, int count) throws InvalidTaskException {
+        this.count = count;
+        service = new TaskService(TaskWorkload.newStore(store, count));
+        service.addTasks(TaskWorkload.deadlineTasks(count));
+        instrumented = new TaskMetrics().instrument(service);
+    }
+
+    @Override
+    public Operation operation(String name) {
+        switch (name) {
+            case "direct":
+                return () -> {
+                    long sum = 0;
+                    for (int id = 0; id < count; id++) {
+                        sum += service.getTaskOrDefault(id, () -> null).getId();
+                    }
+                    return sum;
+                };
+            case "instrumented":
+                return () -> {
+                    long sum = 0;
+                    for (int id = 0; id < count; id++) {
+                        sum += instrumented.getTaskOrDefault(id, () -> null).getId();
+                    }
+                    return sum;
+                };
+            case "record": // Each calling thread records count values into the shared histogram
+                return () -> {
+                    for (int i = 0; i < count; i++) {
+                        histogram.record(i);
+                    }
+                    return histogram.snapshot().getCount();
+                };
+            default:
+                throw new IllegalArgumentException("Unknown operation " + name);
+        }
+    }
+}
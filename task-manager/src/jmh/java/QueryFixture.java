@@ -0,0 +1,50 @@
+import bench.micro.Fixture;
+import bench.micro.Operation;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+// Sequential stream queries against the dedicated fork-join query engine
+public class QueryFixture implements Fixture {
+    private final TaskService service;
+    private final Predicate<Task> overdueHigh;
+
+    public QueryFixture(String store, int count) throws InvalidTaskException {
+        service = new TaskService(TaskWorkload.newStore(store, count));
+        service.addTasks(TaskWorkload.deadlineTasks(count));
+        long today = LocalDate.now().toEpochDay();
+        overdueHigh = t -> t.getPriority() == Priority.HIGH && ((Schedulable) t).isOverdue(today);
+    }
+
+    @Override
+    public Operation operation(String name) {
+        switch (name) {
+            case "filterTasks":
+                return () -> service.filterTasks(overdueHigh).size();
+            case "filterTasksParallel":
+                return () -> service.filterTasksParallel(overdueHigh).size();
+            case "mapTasks":
+                return () -> service.mapTasks(t -> t.getTitle().length()).size();
+            case "mapTasksParallel":
+                return () -> service.mapTasksParallel(t -> t.getTitle().length()).size();
+            case "copyAndSortByTitle": // The old sortTasksByTitle
+                return () -> {
+                    List<Task> copy = service.filterTasks(t -> true);
+                    copy.sort((t1, t2) -> t1.getTitle().compareToIgnoreCase(t2.getTitle()));
+                    return copy.get(0).getId();
+                };
+            case "sortedPageByTitle":
+                return () -> service.getSortedPage(TaskQuery.Order.TITLE, 10, 50).get(0).getId();
+            case "processTasksParallel":
+                return () -> {
+                    LongAdder total = new LongAdder();
+                    service.processTasksParallel(t -> total.add(t.getId()));
+                    return total.sum();
+                };
+            default:
+                throw new IllegalArgumentException("Unknown operation " + name);
+        }
+    }
+}
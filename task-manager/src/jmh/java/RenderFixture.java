@@ -0,0 +1,81 @@
+import bench.micro.Fixture;
+import bench.micro.Operation;
+
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.time.LocalDate;
+import java.util.List;
+
+// Overdue checks and rendering, per task and for the whole report
+public class RenderFixture implements Fixture {
+    private final List<Task> tasks;
+    private final TaskService service;
+
+    public RenderFixture(String store, int count) throws InvalidTaskException {
+        tasks = TaskWorkload.deadlineTasks(count);
+        service = new TaskService(TaskWorkload.newStore(store, count));
+        service.addTasks(tasks);
+    }
+
+    @Override
+    public Operation operation(String name) {
+        switch (name) {
+            case "isOverdue": // Reads the clock per task
+                return () -> {
+                    long overdue = 0;
+                    for (Task t : tasks) {
+                        if (((Schedulable) t).isOverdue()) {
+                            overdue++;
+                        }
+                    }
+                    return overdue;
+                };
+            case "isOverdueToday": // Reads the clock once
+                return () -> {
+                    long today = LocalDate.now().toEpochDay();
+                    long overdue = 0;
+                    for (Task t : tasks) {
+                        if (((Schedulable) t).isOverdue(today)) {
+                            overdue++;
+                        }
+                    }
+                    return overdue;
+                };
+            case "toString":
+                return () -> {
+                    long length = 0;
+                    for (Task t : tasks) {
+                        length += t.toString().length();
+                    }
+                    return length;
+                };
+            case "appendTo":
+                return () -> {
+                    long today = LocalDate.now().toEpochDay();
+                    StringBuilder sb = new StringBuilder(64);
+                    long length = 0;
+                    for (Task t : tasks) {
+                        sb.setLength(0);
+                        t.appendTo(sb, today);
+                        length += sb.length();
+                    }
+                    return length;
+                };
+            case "generateReport":
+                return () -> service.generateReport().length();
+            case "writeReportToWriter":
+                return () -> {
+                    service.writeReport(Writer.nullWriter());
+                    return 0;
+                };
+            case "writeReportToChannel":
+                return () -> {
+                    service.writeReport(Channels.newChannel(OutputStream.nullOutputStream()));
+                    return 0;
+                };
+            default:
+                throw new IllegalArgumentException("Unknown operation " + name);
+        }
+    }
+}
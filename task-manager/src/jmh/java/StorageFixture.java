@@ -0,0 +1,67 @@
+import bench.micro.Fixture;
+import bench.micro.Operation;
+
+import java.time.LocalDate;
+
+// Queries that read fields through the store instead of through Task objects, and
+// the heap the store retains per task
+public class StorageFixture implements Fixture {
+    private final TaskService service;
+    private final TaskQuery dueThisMonth;
+    private final TaskQuery lowInRange;
+    private final double bytesPerTask;
+
+    public StorageFixture(String store, int count) throws InvalidTaskException, InterruptedException {
+        LocalDate today = LocalDate.now();
+        long before = usedHeap();
+        TaskStore filled = TaskWorkload.newStore(store, count);
+        for (int i = 0; i < count; i++) {
+            filled.add(new DeadlineTask(i, "Task " + i, Priority.values()[i % 3], today.plusDays(i % 731 - 365)));
+        }
+        bytesPerTask = (double) (usedHeap() - before) / count;
+
+        service = new TaskService(filled.newEmpty(count));
+        for (int i = 0; i < count; i++) {
+            service.addTask(filled.detach(i));
+        }
+        dueThisMonth = new TaskQuery.Builder()
+                .setDeadlineRange(today, today.plusDays(30)).build(); // No pending flag: a full scan
+        lowInRange = new TaskQuery.Builder()
+                .setPriorities(Priority.LOW).setIdRange(0, count / 2).build();
+    }
+
+    static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    @Override
+    public Operation operation(String name) {
+        switch (name) {
+            case "deadlineRangeScan":
+                return () -> service.query(dueThisMonth).size();
+            case "lowInIdRange":
+                return () -> service.query(lowInRange).size();
+            case "sortedPageByDeadline":
+                return () -> service.getSortedPage(TaskQuery.Order.DEADLINE, 0, 50).size();
+            case "sortedPageById":
+                return () -> service.getSortedPage(TaskQuery.Order.ID, 0, 50).size();
+            case "filterHighViaTask":
+                return () -> service.filterTasks(t -> t.getPriority() == Priority.HIGH).size();
+            default:
+                throw new IllegalArgumentException("Unknown operation " + name);
+        }
+    }
+
+    @Override
+    public double measured(String name) {
+        if (name.equals("bytesPerTask")) {
+            return bytesPerTask;
+        }
+        return Fixture.super.measured(name);
+    }
+}
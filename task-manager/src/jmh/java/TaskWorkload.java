@@ -0,0 +1,96 @@
+import bench.Workload;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+// Workload over a TaskService, for the benchmarks in package bench (see Workload)
+public class TaskWorkload implements Workload {
+    private static final Predicate<Task> OVERDUE_HIGH = t -> t.getPriority() == Priority.HIGH
+            && t instanceof DeadlineTask && ((DeadlineTask) t).isOverdue();
+
+    private final String store;
+    private final List<Task> tasks;
+    private TaskService service;
+
+    public TaskWorkload(String store, int count) {
+        newStore(store, 1); // Rejects an unknown store now rather than in the first setup
+        this.store = store;
+        this.tasks = deadlineTasks(count);
+        empty();
+    }
+
+    // Tasks 0..count-1, all priorities, deadlines from a year ago to a year ahead
+    static List<Task> deadlineTasks(int count) {
+        LocalDate today = LocalDate.now();
+        List<Task> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Priority priority = Priority.values()[i % Priority.values().length];
+            tasks.add(new DeadlineTask(i, "Task " + i, priority, today.plusDays(i % 731 - 365)));
+        }
+        return tasks;
+    }
+
+    static TaskStore newStore(String store, int expectedSize) {
+        switch (store) {
+            case "heap": return new HeapTaskStore(expectedSize);
+            case "columnar": return new ColumnarTaskStore(expectedSize);
+            case "offheap": return new OffHeapTaskStore(expectedSize);
+            default: throw new IllegalArgumentException("Unknown store " + store);
+        }
+    }
+
+    @Override
+    public int size() {
+        return tasks.size();
+    }
+
+    @Override
+    public void empty() {
+        service = new TaskService(newStore(store, tasks.size()));
+    }
+
+    @Override
+    public void loaded() throws InvalidTaskException {
+        empty();
+        service.addTasks(tasks);
+    }
+
+    @Override
+    public void addTask(int index) throws InvalidTaskException {
+        service.addTask(tasks.get(index));
+    }
+
+    @Override
+    public void markCompleted(int index) throws InvalidTaskException {
+        service.markCompleted(tasks.get(index).getId());
+    }
+
+    @Override
+    public int filterOverdueHigh() {
+        return service.filterTasks(OVERDUE_HIGH).size();
+    }
+
+    @Override
+    public void groupByPriority() {
+        service.groupByPriority();
+    }
+
+    @Override
+    public int generateReport() {
+        return service.generateReport().length();
+    }
+
+    @Override
+    public void saveToFile(String filename) {
+        service.saveToFile(filename);
+    }
+
+    @Override
+    public int loadFromFile(String filename) {
+        TaskService target = new TaskService(newStore(store, 16));
+        target.loadFromFile(filename);
+        return target.getTaskTitlesArray().length;
+    }
+}
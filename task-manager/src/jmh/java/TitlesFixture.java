@@ -0,0 +1,29 @@
+import bench.micro.Fixture;
+import bench.micro.Operation;
+
+// Joining every title; the time per task should stay flat from 1k to 1M tasks
+public class TitlesFixture implements Fixture {
+    private final TaskService service;
+
+    public TitlesFixture(String store, int count) throws InvalidTaskException {
+        service = new TaskService(TaskWorkload.newStore(store, count));
+        service.addTasks(TaskWorkload.deadlineTasks(count));
+    }
+
+    @Override
+    public Operation operation(String name) {
+        switch (name) {
+            case "reduce": // The previous implementation, quadratic in the number of tasks
+                return () -> service.mapTasks(Task::getTitle).stream()
+                        .reduce((t1, t2) -> t1 + ", " + t2).orElse("").length();
+            case "combined":
+                return () -> service.getCombinedTaskTitles().length();
+            case "combinedParallel":
+                return () -> service.getCombinedTaskTitlesParallel().length();
+            case "combinedFirst10":
+                return () -> service.getCombinedTaskTitles(10).length();
+            default:
+                throw new IllegalArgumentException("Unknown operation " + name);
+        }
+    }
+}
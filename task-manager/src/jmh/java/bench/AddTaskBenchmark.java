@@ -0,0 +1,29 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.util.concurrent.TimeUnit;
+
+// Fills an empty service: each invocation is one pass over every task, split between
+// the threads, so the time shows how adding scales with the thread count
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class AddTaskBenchmark extends MatrixBenchmark {
+    @Setup(Level.Iteration)
+    public void emptyService() {
+        workload.empty();
+    }
+
+    @Benchmark
+    public void addTask(ThreadParams thread) throws Exception {
+        for (int i = thread.getThreadIndex(); i < tasks; i += thread.getThreadCount()) {
+            workload.addTask(i);
+        }
+    }
+}
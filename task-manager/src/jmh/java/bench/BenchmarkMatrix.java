@@ -0,0 +1,41 @@
+package bench;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatFactory;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Runs the matrix benchmarks (package bench, not bench.micro) at each thread count and
+// writes all results to one file (JSON unless -rf says otherwise), so two releases can
+// be diffed. Takes JMH's own options; -t picks a single thread count instead of 1, 8
+// and 32, and a regex picks benchmarks.
+//
+//   java -cp <jmh classpath> bench.BenchmarkMatrix [JMH options] [benchmark regex]
+public class BenchmarkMatrix {
+    private static final int[] THREADS = { 1, 8, 32 };
+    private static final String MATRIX = "^bench\\.[A-Z]";
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions command = new CommandLineOptions(args);
+        int[] threadCounts = command.getThreads().hasValue() ? new int[] { command.getThreads().get() } : THREADS;
+        String file = command.getResult().orElse("jmh-result.json");
+        ResultFormatType format = command.getResultFormat().orElse(ResultFormatType.JSON);
+
+        List<RunResult> results = new ArrayList<>();
+        for (int threads : threadCounts) {
+            OptionsBuilder options = new OptionsBuilder();
+            options.parent(command).threads(threads);
+            if (command.getIncludes().isEmpty()) {
+                options.include(MATRIX);
+            }
+            results.addAll(new Runner(options).run()); // A run overwrites file with its own results
+        }
+        ResultFormatFactory.getInstance(format, file).writeOut(results);
+        System.out.println("Results of " + results.size() + " benchmark run(s) written to " + file);
+    }
+}
@@ -0,0 +1,28 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.util.concurrent.TimeUnit;
+
+// Completes every task of a full service, split between the threads
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MarkCompletedBenchmark extends MatrixBenchmark {
+    @Setup(Level.Iteration)
+    public void loadedService() throws Exception {
+        workload.loaded();
+    }
+
+    @Benchmark
+    public void markCompleted(ThreadParams thread) throws Exception {
+        for (int i = thread.getThreadIndex(); i < tasks; i += thread.getThreadCount()) {
+            workload.markCompleted(i);
+        }
+    }
+}
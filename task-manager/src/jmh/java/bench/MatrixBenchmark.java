@@ -0,0 +1,49 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+// The release benchmark matrix: every TaskService hot path at each task count and
+// store. BenchmarkMatrix runs it at 1, 8 and 32 threads; @Threads is the default for
+// a plain JMH run. All threads share one service, as concurrent callers would.
+// Workers of generateReport, saveToFile and loadFromFile each hold about one copy of
+// the task data, so the 1M cells at 32 threads need a big heap (-jvmArgsAppend -Xmx8g).
+@State(Scope.Benchmark)
+@Fork(1)
+@Threads(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public abstract class MatrixBenchmark {
+    @Param({ "1000", "100000", "1000000" })
+    public int tasks;
+
+    @Param({ "heap", "columnar", "offheap" })
+    public String store;
+
+    protected Workload workload;
+    private PrintStream console;
+
+    @Setup(Level.Trial)
+    public void createWorkload() {
+        // The service prints as it works (groupByPriority, saveToFile, ...); keep that out of the run
+        console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        workload = Workload.create(store, tasks);
+    }
+
+    @TearDown(Level.Trial)
+    public void restoreConsole() {
+        System.setOut(console);
+    }
+}
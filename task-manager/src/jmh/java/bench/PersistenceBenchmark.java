@@ -0,0 +1,60 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// Saving the full service, each thread to its own file, and loading its snapshot
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PersistenceBenchmark extends MatrixBenchmark {
+    private Path snapshot;
+
+    @State(Scope.Thread)
+    public static class Target {
+        Path file;
+
+        @Setup(Level.Trial)
+        public void createFile() throws IOException {
+            file = Files.createTempFile("bench-save", ".bin");
+        }
+
+        @TearDown(Level.Trial)
+        public void deleteFile() throws IOException {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void saveSnapshot() throws Exception {
+        workload.loaded();
+        snapshot = Files.createTempFile("bench-load", ".bin");
+        workload.saveToFile(snapshot.toString());
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteSnapshot() throws IOException {
+        Files.deleteIfExists(snapshot);
+    }
+
+    @Benchmark
+    public void saveToFile(Target target) {
+        workload.saveToFile(target.file.toString());
+    }
+
+    @Benchmark
+    public int loadFromFile() {
+        return workload.loadFromFile(snapshot.toString());
+    }
+}
@@ -0,0 +1,35 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+
+import java.util.concurrent.TimeUnit;
+
+// Whole-service reads, each invocation visiting every task
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ReadBenchmark extends MatrixBenchmark {
+    @Setup(Level.Trial)
+    public void loadedService() throws Exception {
+        workload.loaded();
+    }
+
+    @Benchmark
+    public int filterTasks() {
+        return workload.filterOverdueHigh();
+    }
+
+    @Benchmark
+    public void groupByPriority() {
+        workload.groupByPriority();
+    }
+
+    @Benchmark
+    public int generateReport() {
+        return workload.generateReport();
+    }
+}
@@ -0,0 +1,39 @@
+package bench;
+
+// The task manager's classes are in the default package, which JMH benchmarks cannot
+// be in and packaged classes cannot import. A benchmark reaches them through this
+// interface, implemented by TaskWorkload (default package, in this source set).
+public interface Workload {
+    // A workload over count generated tasks in a store of the given kind (heap, columnar, offheap)
+    static Workload create(String store, int count) {
+        try {
+            return (Workload) Class.forName("TaskWorkload")
+                    .getConstructor(String.class, int.class)
+                    .newInstance(store, count);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot create TaskWorkload", e);
+        }
+    }
+
+    int size();
+
+    // Replaces the service with an empty one, or one holding every task
+    void empty();
+
+    void loaded() throws Exception;
+
+    void addTask(int index) throws Exception;
+
+    void markCompleted(int index) throws Exception;
+
+    int filterOverdueHigh();
+
+    void groupByPriority();
+
+    int generateReport();
+
+    void saveToFile(String filename);
+
+    // Loads filename into a new service and returns its task count
+    int loadFromFile(String filename);
+}
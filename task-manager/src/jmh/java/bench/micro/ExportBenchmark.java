@@ -0,0 +1,42 @@
+package bench.micro;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+// exportTasks() against handing the same data out as getTaskMatrix() and writing that
+public class ExportBenchmark extends MicroBenchmark {
+    @Param({ "1000000" })
+    public int tasks;
+
+    @Param({ "heap", "columnar", "offheap" })
+    public String store;
+
+    private Operation taskMatrixAsCsv;
+    private Operation exportCsv;
+    private Operation exportNdjson;
+
+    @Setup(Level.Trial)
+    public void createFixture() {
+        open("ExportFixture", store, tasks);
+        taskMatrixAsCsv = fixture.operation("taskMatrixAsCsv");
+        exportCsv = fixture.operation("exportCsv");
+        exportNdjson = fixture.operation("exportNdjson");
+    }
+
+    @Benchmark
+    public long taskMatrixAsCsv() throws Exception {
+        return taskMatrixAsCsv.run();
+    }
+
+    @Benchmark
+    public long exportCsv() throws Exception {
+        return exportCsv.run();
+    }
+
+    @Benchmark
+    public long exportNdjson() throws Exception {
+        return exportNdjson.run();
+    }
+}
@@ -0,0 +1,27 @@
+package bench.micro;
+
+// Data and services for one benchmark class, built by a default-package class of this
+// source set (see bench.Workload for why); the benchmark times its operations by name
+public interface Fixture extends AutoCloseable {
+    // An instance of the named fixture class over count tasks in the given store
+    static Fixture create(String className, String store, int count) {
+        try {
+            return (Fixture) Class.forName(className)
+                    .getConstructor(String.class, int.class)
+                    .newInstance(store, count);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot create " + className, e);
+        }
+    }
+
+    Operation operation(String name);
+
+    // A figure measured while the fixture was built, such as retained bytes per task
+    default double measured(String name) {
+        throw new IllegalArgumentException("Nothing measured as " + name);
+    }
+
+    @Override
+    default void close() throws Exception {
+    }
+}
@@ -0,0 +1,52 @@
+package bench.micro;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+// GC cost of keeping the tasks live, per store: the pause of a full collection, which
+// traces every live object, and queries whose garbage dies young. Run with -prof gc
+// for the allocation rate and GC time of each. The fullGc result also reports the
+// heap the service retains, in MB.
+public class GcBenchmark extends MicroBenchmark {
+    @Param({ "1000000" })
+    public int tasks;
+
+    @Param({ "heap", "columnar", "offheap" })
+    public String store;
+
+    private double heapMegabytesShare;
+    private Operation fullGc;
+    private Operation queries;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Retained {
+        public double heapMegabytes;
+    }
+
+    @Setup(Level.Trial)
+    public void createFixture(BenchmarkParams params) {
+        open("GcFixture", store, tasks);
+        fullGc = fixture.operation("fullGc");
+        queries = fixture.operation("queries");
+        heapMegabytesShare = counterShare("heapBytes", params) / 1e6;
+    }
+
+    @Benchmark
+    public long fullGc(Retained retained) throws Exception {
+        retained.heapMegabytes = heapMegabytesShare;
+        return fullGc.run();
+    }
+
+    // A deadline-range query and a page sorted by deadline
+    @Benchmark
+    public long queries() throws Exception {
+        return queries.run();
+    }
+}
@@ -0,0 +1,49 @@
+package bench.micro;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+
+// TaskImporter against reading the same CSV line by line and calling addTask() per row
+// A pass takes seconds at 1M rows, so it runs fewer iterations
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ImportBenchmark extends MicroBenchmark {
+    @Param({ "1000000" })
+    public int tasks;
+
+    @Param({ "heap" })
+    public String store;
+
+    private Operation readLineAndAddTask;
+    private Operation importer;
+    private Operation importerAllCpus;
+
+    @Setup(Level.Trial)
+    public void createFixture() {
+        open("ImportFixture", store, tasks);
+        readLineAndAddTask = fixture.operation("readLineAndAddTask");
+        importer = fixture.operation("importer");
+        importerAllCpus = fixture.operation("importerAllCpus");
+    }
+
+    @Benchmark
+    public long readLineAndAddTask() throws Exception {
+        return readLineAndAddTask.run();
+    }
+
+    // One parser thread
+    @Benchmark
+    public long importer() throws Exception {
+        return importer.run();
+    }
+
+    // A parser thread per CPU
+    @Benchmark
+    public long importerAllCpus() throws Exception {
+        return importerAllCpus.run();
+    }
+}
@@ -0,0 +1,46 @@
+package bench.micro;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Threads;
+
+// Cost of the TaskMetrics proxy on a cheap call (a pass of getTaskOrDefault() over
+// every ID), and of recording into one LatencyHistogram from several threads
+public class MetricsBenchmark extends MicroBenchmark {
+    @Param({ "100000" })
+    public int tasks;
+
+    @Param({ "heap" })
+    public String store;
+
+    private Operation direct;
+    private Operation instrumented;
+    private Operation record;
+
+    @Setup(Level.Trial)
+    public void createFixture() {
+        open("MetricsFixture", store, tasks);
+        direct = fixture.operation("direct");
+        instrumented = fixture.operation("instrumented");
+        record = fixture.operation("record");
+    }
+
+    @Benchmark
+    public long getTaskOrDefaultDirect() throws Exception {
+        return direct.run();
+    }
+
+    @Benchmark
+    public long getTaskOrDefaultInstrumented() throws Exception {
+        return instrumented.run();
+    }
+
+    // Each thread records tasks values per call
+    @Benchmark
+    @Threads(4)
+    public long recordHistogram() throws Exception {
+        return record.run();
+    }
+}
@@ -0,0 +1,49 @@
+package bench.micro;
+
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+// Micro-benchmarks of single hot paths, one class per area. Each @Benchmark runs one
+// operation of the class's Fixture; most visit every task, so the score is per pass.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public abstract class MicroBenchmark {
+    protected Fixture fixture;
+    private PrintStream console;
+
+    protected void open(String fixtureClass, String store, int tasks) {
+        // The service prints as it works; keep that out of the run
+        console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        fixture = Fixture.create(fixtureClass, store, tasks);
+    }
+
+    // A figure the fixture measured, as the value for an EVENTS aux counter: JMH adds those
+    // up over the threads and measurement iterations, so each reports its share
+    protected double counterShare(String measured, BenchmarkParams params) {
+        return fixture.measured(measured) / (params.getThreads() * params.getMeasurement().getCount());
+    }
+
+    @TearDown(Level.Trial)
+    public void closeFixture() throws Exception {
+        fixture.close();
+        System.setOut(console);
+    }
+}
@@ -0,0 +1,7 @@
+package bench.micro;
+
+// One timed operation; the result goes to JMH so the work cannot be optimized away
+@FunctionalInterface
+public interface Operation {
+    long run() throws Exception;
+}
@@ -0,0 +1,75 @@
+package bench.micro;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+// Sequential stream queries against the dedicated fork-join query engine
+public class QueryBenchmark extends MicroBenchmark {
+    @Param({ "1000000" })
+    public int tasks;
+
+    @Param({ "heap" })
+    public String store;
+
+    private Operation filterTasks;
+    private Operation filterTasksParallel;
+    private Operation mapTasks;
+    private Operation mapTasksParallel;
+    private Operation copyAndSortByTitle;
+    private Operation getSortedPageByTitle;
+    private Operation processTasksParallel;
+
+    @Setup(Level.Trial)
+    public void createFixture() {
+        open("QueryFixture", store, tasks);
+        filterTasks = fixture.operation("filterTasks");
+        filterTasksParallel = fixture.operation("filterTasksParallel");
+        mapTasks = fixture.operation("mapTasks");
+        mapTasksParallel = fixture.operation("mapTasksParallel");
+        copyAndSortByTitle = fixture.operation("copyAndSortByTitle");
+        getSortedPageByTitle = fixture.operation("sortedPageByTitle");
+        processTasksParallel = fixture.operation("processTasksParallel");
+    }
+
+    // Overdue HIGH tasks
+    @Benchmark
+    public long filterTasks() throws Exception {
+        return filterTasks.run();
+    }
+
+    @Benchmark
+    public long filterTasksParallel() throws Exception {
+        return filterTasksParallel.run();
+    }
+
+    // Title lengths
+    @Benchmark
+    public long mapTasks() throws Exception {
+        return mapTasks.run();
+    }
+
+    @Benchmark
+    public long mapTasksParallel() throws Exception {
+        return mapTasksParallel.run();
+    }
+
+    // The old sortTasksByTitle
+    @Benchmark
+    public long copyAndSortByTitle() throws Exception {
+        return copyAndSortByTitle.run();
+    }
+
+    // Page 10, 50 tasks per page
+    @Benchmark
+    public long getSortedPageByTitle() throws Exception {
+        return getSortedPageByTitle.run();
+    }
+
+    // Sum of IDs
+    @Benchmark
+    public long processTasksParallel() throws Exception {
+        return processTasksParallel.run();
+    }
+}
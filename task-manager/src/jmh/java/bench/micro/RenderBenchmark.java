@@ -0,0 +1,72 @@
+package bench.micro;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+// Overdue checks and rendering: per task, and the whole report
+public class RenderBenchmark extends MicroBenchmark {
+    @Param({ "100000" })
+    public int tasks;
+
+    @Param({ "heap" })
+    public String store;
+
+    private Operation isOverdue;
+    private Operation isOverdueToday;
+    private Operation toStringPerTask;
+    private Operation appendToPerTask;
+    private Operation generateReport;
+    private Operation writeReportToWriter;
+    private Operation writeReportToChannel;
+
+    @Setup(Level.Trial)
+    public void createFixture() {
+        open("RenderFixture", store, tasks);
+        isOverdue = fixture.operation("isOverdue");
+        isOverdueToday = fixture.operation("isOverdueToday");
+        toStringPerTask = fixture.operation("toString");
+        appendToPerTask = fixture.operation("appendTo");
+        generateReport = fixture.operation("generateReport");
+        writeReportToWriter = fixture.operation("writeReportToWriter");
+        writeReportToChannel = fixture.operation("writeReportToChannel");
+    }
+
+    // Reads the clock per task
+    @Benchmark
+    public long isOverdue() throws Exception {
+        return isOverdue.run();
+    }
+
+    // Reads the clock once per pass
+    @Benchmark
+    public long isOverdueToday() throws Exception {
+        return isOverdueToday.run();
+    }
+
+    @Benchmark
+    public long toStringPerTask() throws Exception {
+        return toStringPerTask.run();
+    }
+
+    @Benchmark
+    public long appendToPerTask() throws Exception {
+        return appendToPerTask.run();
+    }
+
+    @Benchmark
+    public long generateReport() throws Exception {
+        return generateReport.run();
+    }
+
+    @Benchmark
+    public long writeReportToWriter() throws Exception {
+        return writeReportToWriter.run();
+    }
+
+    @Benchmark
+    public long writeReportToChannel() throws Exception {
+        return writeReportToChannel.run();
+    }
+}
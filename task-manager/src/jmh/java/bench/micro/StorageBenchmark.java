@@ -0,0 +1,72 @@
+package bench.micro;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+// HeapTaskStore against ColumnarTaskStore: scans that read fields through the store
+// instead of through Task objects. The deadlineRangeScan result also reports the heap
+// the filled store retained, in bytes per task.
+public class StorageBenchmark extends MicroBenchmark {
+    @Param({ "1000000" })
+    public int tasks;
+
+    @Param({ "heap", "columnar" })
+    public String store;
+
+    private double bytesPerTaskShare;
+    private Operation deadlineRangeScan;
+    private Operation lowInIdRange;
+    private Operation sortedPageByDeadline;
+    private Operation sortedPageById;
+    private Operation filterHighViaTask;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Retained {
+        public double bytesPerTask;
+    }
+
+    @Setup(Level.Trial)
+    public void createFixture(BenchmarkParams params) {
+        open("StorageFixture", store, tasks);
+        deadlineRangeScan = fixture.operation("deadlineRangeScan");
+        lowInIdRange = fixture.operation("lowInIdRange");
+        sortedPageByDeadline = fixture.operation("sortedPageByDeadline");
+        sortedPageById = fixture.operation("sortedPageById");
+        filterHighViaTask = fixture.operation("filterHighViaTask");
+        bytesPerTaskShare = counterShare("bytesPerTask", params);
+    }
+
+    // No pending flag in the query: a full scan
+    @Benchmark
+    public long deadlineRangeScan(Retained retained) throws Exception {
+        retained.bytesPerTask = bytesPerTaskShare;
+        return deadlineRangeScan.run();
+    }
+
+    @Benchmark
+    public long lowInIdRange() throws Exception {
+        return lowInIdRange.run();
+    }
+
+    @Benchmark
+    public long getSortedPageByDeadline() throws Exception {
+        return sortedPageByDeadline.run();
+    }
+
+    @Benchmark
+    public long getSortedPageById() throws Exception {
+        return sortedPageById.run();
+    }
+
+    @Benchmark
+    public long filterHighViaTask() throws Exception {
+        return filterHighViaTask.run();
+    }
+}
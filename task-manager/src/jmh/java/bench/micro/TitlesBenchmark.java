@@ -0,0 +1,42 @@
+package bench.micro;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+// Joining every title should scale linearly: the time per task stays flat from 1k to 1M tasks
+public class TitlesBenchmark extends MicroBenchmark {
+    @Param({ "1000", "10000", "100000", "1000000" })
+    public int tasks;
+
+    @Param({ "heap" })
+    public String store;
+
+    private Operation getCombinedTaskTitles;
+    private Operation getCombinedTaskTitlesParallel;
+    private Operation getCombinedTaskTitlesFirst10;
+
+    @Setup(Level.Trial)
+    public void createFixture() {
+        open("TitlesFixture", store, tasks);
+        getCombinedTaskTitles = fixture.operation("combined");
+        getCombinedTaskTitlesParallel = fixture.operation("combinedParallel");
+        getCombinedTaskTitlesFirst10 = fixture.operation("combinedFirst10");
+    }
+
+    @Benchmark
+    public long getCombinedTaskTitles() throws Exception {
+        return getCombinedTaskTitles.run();
+    }
+
+    @Benchmark
+    public long getCombinedTaskTitlesParallel() throws Exception {
+        return getCombinedTaskTitlesParallel.run();
+    }
+
+    @Benchmark
+    public long getCombinedTaskTitlesFirst10() throws Exception {
+        return getCombinedTaskTitlesFirst10.run();
+    }
+}
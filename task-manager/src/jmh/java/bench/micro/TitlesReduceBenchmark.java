@@ -0,0 +1,29 @@
+package bench.micro;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+// The previous title join, reduce((a, b) -> a + ", " + b): quadratic in the number
+// of tasks, so only measured up to 10k tasks. Compare with TitlesBenchmark.
+public class TitlesReduceBenchmark extends MicroBenchmark {
+    @Param({ "1000", "10000" })
+    public int tasks;
+
+    @Param({ "heap" })
+    public String store;
+
+    private Operation reduce;
+
+    @Setup(Level.Trial)
+    public void createFixture() {
+        open("TitlesFixture", store, tasks);
+        reduce = fixture.operation("reduce");
+    }
+
+    @Benchmark
+    public long reduce() throws Exception {
+        return reduce.run();
+    }
+}